@@ -0,0 +1,96 @@
+package blitzEdit.benchmark;
+
+import java.io.File;
+
+import blitzEdit.core.BlueprintContainer;
+import blitzEdit.core.Circuit;
+import blitzEdit.storage.LoadListener;
+import blitzEdit.test.CircuitGenerator;
+
+/**
+ * Creates the circuits used by the benchmarks.
+ */
+final class BenchmarkCircuits
+{
+	// distance of the components on the grid
+	static final int SPACING = 300;
+
+	/**
+	 * LoadListener accepting modified files and failing on errors, so no dialogs are shown
+	 */
+	static final LoadListener QUIET = new LoadListener()
+	{
+		@Override
+		public boolean acceptModifications(String filePath)
+		{
+			return true;
+		}
+
+		@Override
+		public void loadingFailed(String filePath, String message)
+		{
+			throw new IllegalStateException(message);
+		}
+
+		@Override
+		public void progress(long records, long bytesRead, long bytesTotal)
+		{
+		}
+	};
+
+	/**
+	 * Loads the blueprints from the blueprint directory, "blueprints" or the
+	 * value of the system property blitzedit.blueprints
+	 */
+	static synchronized void loadBlueprints()
+	{
+		if (!BlueprintContainer.get().getBlueprints().isEmpty())
+			return;
+		File[] files = new File(System.getProperty("blitzedit.blueprints", "blueprints")).listFiles();
+		if (files == null)
+			throw new IllegalStateException("Blueprint directory not found, run the benchmarks from the repository root");
+		for (File file : files)
+		{
+			if (file.getName().toLowerCase().endsWith(".xml"))
+				BlueprintContainer.get().addBlueprint(file);
+		}
+	}
+
+	/**
+	 * Creates a circuit with components on a square grid, see {@link CircuitGenerator.Shape#CHAIN}.
+	 * The types and rotations are chosen randomly.
+	 *
+	 * @param size		number of components
+	 * @param seed		seed of the random types and rotations
+	 * @return Circuit	created circuit
+	 */
+	static Circuit createGrid(int size, long seed)
+	{
+		loadBlueprints();
+		return new CircuitGenerator(BlueprintContainer.get().getBlueprints())
+				.setShape(CircuitGenerator.Shape.CHAIN)
+				.setComponentCount(size)
+				.setRotationMix(0.75)
+				.setSpacing(SPACING)
+				.setSeed(seed)
+				.generate();
+	}
+
+	/**
+	 * @param size	number of components
+	 * @return width and height of the grid created by {@link #createGrid(int, long)}
+	 */
+	static int extent(int size)
+	{
+		return (columns(size) + 1) * SPACING;
+	}
+
+	private static int columns(int size)
+	{
+		return Math.max(1, (int) Math.ceil(Math.sqrt(size)));
+	}
+
+	private BenchmarkCircuits()
+	{
+	}
+}
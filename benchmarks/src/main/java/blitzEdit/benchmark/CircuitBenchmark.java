@@ -0,0 +1,94 @@
+package blitzEdit.benchmark;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import blitzEdit.core.Circuit;
+import blitzEdit.core.Element;
+import blitzEdit.core.Line;
+
+/**
+ * Benchmarks the queries of {@link Circuit}: elements at a point, in the visible area, by type and all lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CircuitBenchmark
+{
+	// number of precomputed query positions
+	private static final int POSITIONS = 1024;
+	// size of the queried area, about a screen
+	private static final int VIEW_WIDTH = 1600;
+	private static final int VIEW_HEIGHT = 1200;
+
+	@Param({ "100", "1000", "10000", "100000" })
+	public int size;
+
+	private Circuit circuit;
+	private int[] x;
+	private int[] y;
+	private int next;
+
+	@Setup
+	public void setup()
+	{
+		circuit = BenchmarkCircuits.createGrid(size, 1);
+		Random random = new Random(2);
+		int extent = BenchmarkCircuits.extent(size);
+		x = new int[POSITIONS];
+		y = new int[POSITIONS];
+		for (int i = 0; i < POSITIONS; i++)
+		{
+			x[i] = random.nextInt(extent);
+			y[i] = random.nextInt(extent);
+		}
+	}
+
+	@Benchmark
+	public ArrayList<Element> elementsAtPoint()
+	{
+		int i = next++ & (POSITIONS - 1);
+		return circuit.getElementsByPosition(x[i], y[i]);
+	}
+
+	@Benchmark
+	public ArrayList<Element> elementsInRect()
+	{
+		int i = next++ & (POSITIONS - 1);
+		return circuit.getElementsByPosition(x[i], y[i], VIEW_WIDTH, VIEW_HEIGHT);
+	}
+
+	@Benchmark
+	public ArrayList<Element> elementsByType()
+	{
+		return circuit.getElementsByType("Widerstand");
+	}
+
+	@Benchmark
+	public int lines()
+	{
+		int count = 0;
+		for (Line line : circuit.getLines())
+		{
+			if (line.getC1() != null)
+				count++;
+		}
+		return count;
+	}
+}
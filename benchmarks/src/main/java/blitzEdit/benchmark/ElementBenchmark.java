@@ -0,0 +1,96 @@
+package blitzEdit.benchmark;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import blitzEdit.core.Circuit;
+import blitzEdit.core.Component;
+import blitzEdit.core.Connector;
+import blitzEdit.core.Element;
+
+/**
+ * Benchmarks moving and rotating components of a circuit and the anker points of connectors.
+ * Moves and rotations keep the spatial index, lines and bounds of the circuit up to date,
+ * so their cost can depend on the size of the circuit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElementBenchmark
+{
+	@Param({ "100", "1000", "10000", "100000" })
+	public int size;
+
+	private Circuit circuit;
+	private Component[] components;
+	private Connector[] connectors;
+	private int next;
+
+	@Setup
+	public void setup()
+	{
+		circuit = BenchmarkCircuits.createGrid(size, 1);
+		ArrayList<Component> comps = new ArrayList<Component>();
+		ArrayList<Connector> conns = new ArrayList<Connector>();
+		for (Element elem : circuit.getElements())
+		{
+			if (elem instanceof Component)
+				comps.add((Component) elem);
+			else if (elem instanceof Connector)
+				conns.add((Connector) elem);
+		}
+		components = comps.toArray(new Component[comps.size()]);
+		connectors = conns.toArray(new Connector[conns.size()]);
+	}
+
+	@Benchmark
+	public Component move()
+	{
+		// every component is moved back and forth, so the circuit doesn't change over time
+		int i = next++;
+		Component comp = components[(i >>> 1) % components.length];
+		int offset = (i & 1) == 0 ? BenchmarkCircuits.SPACING / 3 : -BenchmarkCircuits.SPACING / 3;
+		comp.move(comp.getX() + offset, comp.getY());
+		return comp;
+	}
+
+	@Benchmark
+	public Component rotate()
+	{
+		Component comp = components[nextIndex(components.length)];
+		comp.rotate((short) 90);
+		return comp;
+	}
+
+	@Benchmark
+	public Point ankerPoint()
+	{
+		return connectors[nextIndex(connectors.length)].getAnkerPoint();
+	}
+
+	/**
+	 * Cycles through the indices of an array, wrapping before next could overflow
+	 */
+	private int nextIndex(int length)
+	{
+		if (next >= length)
+			next = 0;
+		return next++;
+	}
+}
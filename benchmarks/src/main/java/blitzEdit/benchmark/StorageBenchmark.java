@@ -0,0 +1,71 @@
+package blitzEdit.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import blitzEdit.core.Circuit;
+import blitzEdit.storage.XMLParser;
+
+/**
+ * Benchmarks saving and loading circuits with the {@link XMLParser}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark
+{
+	@Param({ "100", "1000", "10000", "100000" })
+	public int size;
+
+	private Circuit circuit;
+	private File loadFile;
+	private File saveFile;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		circuit = BenchmarkCircuits.createGrid(size, 1);
+		loadFile = File.createTempFile("blitzedit-load", ".xml");
+		saveFile = File.createTempFile("blitzedit-save", ".xml");
+		new XMLParser().saveCircuit(circuit, loadFile.getPath(), true);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		loadFile.delete();
+		saveFile.delete();
+	}
+
+	@Benchmark
+	public File saveXml()
+	{
+		new XMLParser().saveCircuit(circuit, saveFile.getPath(), true);
+		return saveFile;
+	}
+
+	@Benchmark
+	public Circuit loadXml()
+	{
+		Circuit loaded = new Circuit();
+		new XMLParser().loadCircuit(loaded, loadFile.getPath(), BenchmarkCircuits.QUIET);
+		return loaded;
+	}
+}
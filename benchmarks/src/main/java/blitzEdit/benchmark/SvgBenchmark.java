@@ -0,0 +1,57 @@
+package blitzEdit.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tools.SvgDisplayList;
+import tools.SvgRenderer;
+
+/**
+ * Benchmarks parsing the svg images of the components, see {@link SvgRenderer} and {@link SvgDisplayList}.
+ * The images are parsed once per component type, not per component, so the circuit size
+ * doesn't matter here and the benchmark is parameterized by the image instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SvgBenchmark
+{
+	@Param({ "Kondensator", "Spannungsquelle", "Spule", "Widerstand" })
+	public String image;
+
+	private String svgString;
+
+	@Setup
+	public void setup()
+	{
+		svgString = SvgRenderer.getSvgFileString(System.getProperty("blitzedit.images", "img") + "/" + image + ".svg");
+		if (svgString == null)
+			throw new IllegalStateException("Image " + image + " not found, run the benchmarks from the repository root");
+	}
+
+	@Benchmark
+	public SvgDisplayList compile()
+	{
+		return SvgDisplayList.compile(svgString);
+	}
+
+	@Benchmark
+	public double size()
+	{
+		return SvgRenderer.getSvgWidth(svgString) + SvgRenderer.getSvgHeight(svgString);
+	}
+}
@@ -0,0 +1,306 @@
+package tools.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import tools.FlightEvents;
+
+/**
+ * Records the {@link FlightEvents} as Java Flight Recorder events. Loaded by {@link FlightEvents}
+ * only if the jvm contains the flight recorder, this source folder is only compiled with JDK 11 or later.
+ */
+public class JfrRecorder implements FlightEvents.Recorder
+{
+	private static final String CATEGORY = "BlitzEdit";
+
+	// looked up once, isEnabled() of an event type only reads a field
+	private static final EventType HIT_TEST = EventType.getEventType(HitTest.class);
+	private static final EventType DRAW_ELEMENTS = EventType.getEventType(DrawElements.class);
+	private static final EventType CANVAS_REFRESH = EventType.getEventType(CanvasRefresh.class);
+	private static final EventType CIRCUIT_LOAD = EventType.getEventType(CircuitLoad.class);
+	private static final EventType CIRCUIT_SAVE = EventType.getEventType(CircuitSave.class);
+	private static final EventType LIBRARY_IMPORT = EventType.getEventType(LibraryImport.class);
+
+	@Override
+	public boolean isEnabled(Class<? extends FlightEvents.Event> type)
+	{
+		EventType eventType = eventType(type);
+		return eventType != null && eventType.isEnabled();
+	}
+
+	private static EventType eventType(Class<? extends FlightEvents.Event> type)
+	{
+		if (type == FlightEvents.HitTest.class)
+			return HIT_TEST;
+		if (type == FlightEvents.DrawElements.class)
+			return DRAW_ELEMENTS;
+		if (type == FlightEvents.CanvasRefresh.class)
+			return CANVAS_REFRESH;
+		if (type == FlightEvents.CircuitLoad.class)
+			return CIRCUIT_LOAD;
+		if (type == FlightEvents.CircuitSave.class)
+			return CIRCUIT_SAVE;
+		if (type == FlightEvents.LibraryImport.class)
+			return LIBRARY_IMPORT;
+		return null;
+	}
+
+	@Override
+	public Object begin(FlightEvents.Event event)
+	{
+		// no second event while nothing is recorded
+		if (!isEnabled(event.getClass()))
+			return null;
+		Event recorded;
+		if (event instanceof FlightEvents.HitTest)
+			recorded = new HitTest();
+		else if (event instanceof FlightEvents.DrawElements)
+			recorded = new DrawElements();
+		else if (event instanceof FlightEvents.CanvasRefresh)
+			recorded = new CanvasRefresh();
+		else if (event instanceof FlightEvents.CircuitLoad)
+			recorded = new CircuitLoad();
+		else if (event instanceof FlightEvents.CircuitSave)
+			recorded = new CircuitSave();
+		else if (event instanceof FlightEvents.LibraryImport)
+			recorded = new LibraryImport();
+		else
+			return null;
+		recorded.begin();
+		return recorded;
+	}
+
+	@Override
+	public void end(Object recorded)
+	{
+		((Event) recorded).end();
+	}
+
+	@Override
+	public boolean shouldCommit(Object recorded)
+	{
+		return ((Event) recorded).shouldCommit();
+	}
+
+	@Override
+	public void commit(FlightEvents.Event event, Object recorded)
+	{
+		if (event instanceof FlightEvents.HitTest)
+		{
+			FlightEvents.HitTest from = (FlightEvents.HitTest) event;
+			HitTest to = (HitTest) recorded;
+			to.x = from.x;
+			to.y = from.y;
+			to.width = from.width;
+			to.height = from.height;
+			to.candidates = from.candidates;
+			to.hits = from.hits;
+		}
+		else if (event instanceof FlightEvents.DrawElements)
+		{
+			FlightEvents.DrawElements from = (FlightEvents.DrawElements) event;
+			DrawElements to = (DrawElements) recorded;
+			to.zoom = from.zoom;
+			to.damagedArea = from.damagedArea;
+			to.areaWidth = from.areaWidth;
+			to.areaHeight = from.areaHeight;
+			to.elementsDrawn = from.elementsDrawn;
+			to.boxesDrawn = from.boxesDrawn;
+			to.elementsCulled = from.elementsCulled;
+			to.linesDrawn = from.linesDrawn;
+		}
+		else if (event instanceof FlightEvents.CanvasRefresh)
+		{
+			FlightEvents.CanvasRefresh from = (FlightEvents.CanvasRefresh) event;
+			CanvasRefresh to = (CanvasRefresh) recorded;
+			to.zoom = from.zoom;
+			to.gridRedrawn = from.gridRedrawn;
+			to.circuitElements = from.circuitElements;
+		}
+		else if (event instanceof FlightEvents.CircuitLoad)
+		{
+			FlightEvents.CircuitLoad from = (FlightEvents.CircuitLoad) event;
+			CircuitLoad to = (CircuitLoad) recorded;
+			to.path = from.path;
+			to.format = from.format;
+			to.elements = from.elements;
+			to.bytes = from.bytes;
+			to.loaded = from.loaded;
+		}
+		else if (event instanceof FlightEvents.CircuitSave)
+		{
+			FlightEvents.CircuitSave from = (FlightEvents.CircuitSave) event;
+			CircuitSave to = (CircuitSave) recorded;
+			to.path = from.path;
+			to.format = from.format;
+			to.elements = from.elements;
+			to.bytes = from.bytes;
+		}
+		else if (event instanceof FlightEvents.LibraryImport)
+		{
+			FlightEvents.LibraryImport from = (FlightEvents.LibraryImport) event;
+			LibraryImport to = (LibraryImport) recorded;
+			to.directory = from.directory;
+			to.files = from.files;
+			to.blueprints = from.blueprints;
+			to.bytes = from.bytes;
+		}
+		((Event) recorded).commit();
+	}
+
+	@Name("blitzEdit.CircuitLoad")
+	@Label("Circuit Load")
+	@Category({CATEGORY, "Storage"})
+	@StackTrace(false)
+	public static class CircuitLoad extends Event
+	{
+		@Label("Path")
+		public String path;
+
+		@Label("Format")
+		public String format;
+
+		@Label("Elements")
+		@Description("Number of elements in the loaded circuit")
+		public int elements;
+
+		@Label("Bytes")
+		@DataAmount
+		public long bytes;
+
+		@Label("Loaded")
+		public boolean loaded;
+	}
+
+	@Name("blitzEdit.CircuitSave")
+	@Label("Circuit Save")
+	@Category({CATEGORY, "Storage"})
+	@StackTrace(false)
+	public static class CircuitSave extends Event
+	{
+		@Label("Path")
+		public String path;
+
+		@Label("Format")
+		public String format;
+
+		@Label("Elements")
+		@Description("Number of elements in the saved circuit")
+		public int elements;
+
+		@Label("Bytes")
+		@Description("Size of the written file")
+		@DataAmount
+		public long bytes;
+	}
+
+	@Name("blitzEdit.CanvasRefresh")
+	@Label("Canvas Refresh")
+	@Category({CATEGORY, "Rendering"})
+	@StackTrace(false)
+	public static class CanvasRefresh extends Event
+	{
+		@Label("Zoom")
+		@Description("Scale of the canvas, 1 is the original size")
+		public double zoom;
+
+		@Label("Grid Redrawn")
+		public boolean gridRedrawn;
+
+		@Label("Circuit Elements")
+		@Description("Number of elements in the circuit")
+		public int circuitElements;
+	}
+
+	@Name("blitzEdit.DrawElements")
+	@Label("Draw Elements")
+	@Category({CATEGORY, "Rendering"})
+	@StackTrace(false)
+	public static class DrawElements extends Event
+	{
+		@Label("Zoom")
+		@Description("Scale of the canvas, 1 is the original size")
+		public double zoom;
+
+		@Label("Damaged Area")
+		@Description("True if only a damaged area was repainted, false for the whole visible area")
+		public boolean damagedArea;
+
+		@Label("Area Width")
+		public double areaWidth;
+
+		@Label("Area Height")
+		public double areaHeight;
+
+		@Label("Elements Drawn")
+		@Description("Components and connectors drawn with their image")
+		public int elementsDrawn;
+
+		@Label("Boxes Drawn")
+		@Description("Components drawn as box, because they are too small on the screen")
+		public int boxesDrawn;
+
+		@Label("Elements Culled")
+		@Description("Connectors skipped, because they are too small on the screen")
+		public int elementsCulled;
+
+		@Label("Lines Drawn")
+		public int linesDrawn;
+	}
+
+	@Name("blitzEdit.HitTest")
+	@Label("Hit Test")
+	@Category({CATEGORY, "Circuit"})
+	@StackTrace(false)
+	public static class HitTest extends Event
+	{
+		@Label("X")
+		public int x;
+
+		@Label("Y")
+		public int y;
+
+		@Label("Width")
+		@Description("0 for a query of a position")
+		public int width;
+
+		@Label("Height")
+		@Description("0 for a query of a position")
+		public int height;
+
+		@Label("Candidates")
+		@Description("Elements returned by the spatial index")
+		public int candidates;
+
+		@Label("Hits")
+		@Description("Elements actually at the position or in the rectangle")
+		public int hits;
+	}
+
+	@Name("blitzEdit.LibraryImport")
+	@Label("Library Import")
+	@Category({CATEGORY, "Library"})
+	@StackTrace(false)
+	public static class LibraryImport extends Event
+	{
+		@Label("Directory")
+		public String directory;
+
+		@Label("Files")
+		public int files;
+
+		@Label("Blueprints")
+		@Description("Blueprints read successfully")
+		public int blueprints;
+
+		@Label("Bytes")
+		@Description("Size of the xml files")
+		@DataAmount
+		public long bytes;
+	}
+}
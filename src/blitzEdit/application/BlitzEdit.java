@@ -6,20 +6,35 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
 
 import javax.swing.JOptionPane;
 
+import blitzEdit.core.Circuit;
 import blitzEdit.core.Element;
-import blitzEdit.storage.XMLParser;
+import blitzEdit.storage.BinaryParser;
+import blitzEdit.storage.CircuitFormat;
+import blitzEdit.storage.LoadListener;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.event.Event;
+import javafx.event.EventHandler;
 import javafx.fxml.FXML;
 import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.geometry.VPos;
 import javafx.scene.Node;
 import javafx.scene.control.Accordion;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.ScrollPane.ScrollBarPolicy;
 import javafx.scene.control.Tab;
@@ -27,6 +42,7 @@ import javafx.scene.control.TabPane;
 import javafx.scene.control.TitledPane;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.*;
 import javafx.scene.image.Image;
@@ -49,6 +65,47 @@ public class BlitzEdit implements javafx.fxml.Initializable
 	private static ArrayList<LibraryCanvas> libraries = new ArrayList<LibraryCanvas>();
 	private TutorialPanel pane;
 	
+	// asks the user on the JavaFX application thread while a circuit is loaded in the background
+	private final LoadListener loadPrompts = new LoadListener()
+	{
+		@Override
+		public boolean acceptModifications(String filePath)
+		{
+			FutureTask<Boolean> question = new FutureTask<Boolean>(() -> {
+				Alert alert = new Alert(AlertType.CONFIRMATION,
+						"Modifications have been made in this file. Do you still want to load it?",
+						ButtonType.YES, ButtonType.NO);
+				alert.setTitle("Loading Error");
+				alert.setHeaderText(filePath);
+				return alert.showAndWait().orElse(ButtonType.NO) == ButtonType.YES;
+			});
+			Platform.runLater(question);
+			try
+			{
+				return question.get();
+			}
+			catch (InterruptedException | ExecutionException e)
+			{
+				return false;
+			}
+		}
+		
+		@Override
+		public void loadingFailed(String filePath, String message)
+		{
+			Platform.runLater(() -> {
+				Alert alert = new Alert(AlertType.ERROR, message);
+				alert.setTitle("Loading Error");
+				alert.show();
+			});
+		}
+		
+		@Override
+		public void progress(long records, long bytesRead, long bytesTotal)
+		{
+		}
+	};
+	
 	@FXML
 	private MenuItem New;
 	@FXML
@@ -87,6 +144,8 @@ public class BlitzEdit implements javafx.fxml.Initializable
 	private MenuItem About;
 	@FXML
 	private MenuItem ToggleTutorial;
+	@FXML
+	private MenuItem PerformanceHudOnOff;
 
 	@FXML
 	private TabPane CircuitsTabPane;
@@ -103,7 +162,11 @@ public class BlitzEdit implements javafx.fxml.Initializable
 		addTab("New Circuit");
 		addLibrary("Template Library");
 		createTutorialPane();
-		getCurrentLibraryCanvas().addLibraryEntries(new File("blueprints/"));
+		LibraryImportTask task = getCurrentLibraryCanvas().addLibraryEntries(new File("blueprints/"));
+		if(task != null)
+		{
+			startLibraryImport(getCurrentLibraryTitledPane(), getCurrentLibraryCanvas(), task, false);
+		}
 	}
 	
 	/**
@@ -133,8 +196,7 @@ public class BlitzEdit implements javafx.fxml.Initializable
 	 */
 	public CircuitCanvas getCurrentCircuitCanvas()
 	{
-		ScrollPane sp = (ScrollPane) getCurrentTab().getContent();
-		return (CircuitCanvas) sp.getContent();
+		return (CircuitCanvas) getCurrentTab().getUserData();
 	}
 	
 	/**
@@ -157,16 +219,20 @@ public class BlitzEdit implements javafx.fxml.Initializable
 	@FXML
 	private void handleReloadAction(Event event)
 	{
-		File filepath = getCurrentCircuitCanvas().currentSaveDirection;
+		CircuitCanvas canvas = getCurrentCircuitCanvas();
+		File filepath = canvas.currentSaveDirection;
+		if (canvas.isLocked())
+		{
+			Debug_Text.setText("The circuit is being loaded or saved.");
+			return;
+		}
 		
 		int confirm = JOptionPane.showConfirmDialog(null,
 				"Do you want to discard changes and reload the circuit file?", "Reload",
 				JOptionPane.OK_OPTION);
 		if (filepath != null && confirm == JOptionPane.OK_OPTION)
 		{
-			XMLParser parser = new XMLParser();
-			parser.loadCircuit(getCurrentCircuitCanvas().circuit, filepath.getPath());
-			getCurrentCircuitCanvas().refreshCanvas();
+			startLoad(getCurrentTab(), canvas, filepath);
 		}
 		else if (confirm != JOptionPane.OK_OPTION)
 		{
@@ -183,16 +249,18 @@ public class BlitzEdit implements javafx.fxml.Initializable
 	{
 		FileChooser fileChooser = new FileChooser();
 		fileChooser.setTitle("Open circuit diagram");
+		fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Circuit", "*.xml", "*." + BinaryParser.EXTENSION));
 		fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("XML", "*.xml"));
+		fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Binary circuit", "*." + BinaryParser.EXTENSION));
 		File filepath = fileChooser.showOpenDialog(Main.mainStage);
 		
 		if (filepath != null)
 		{
-			CircuitCanvas newCanvas = addTab(filepath.getName().replace(".xml", ""));
-			XMLParser parser = new XMLParser();
-			parser.loadCircuit(newCanvas.circuit, filepath.getPath());
-			newCanvas.refreshCanvas();
+			// detect the format by content, the extension may be wrong
+			CircuitFormat format = CircuitFormat.detect(filepath.getPath());
+			CircuitCanvas newCanvas = addTab(format.removeExtension(filepath.getName()));
 			newCanvas.currentSaveDirection = filepath;
+			startLoad(getCurrentTab(), newCanvas, filepath);
 		}
 	}
 
@@ -205,19 +273,15 @@ public class BlitzEdit implements javafx.fxml.Initializable
 			FileChooser fileChooser = new FileChooser();
 			fileChooser.setTitle("Save circuit diagram");
 			fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("XML", "*.xml"));
+			fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Binary circuit", "*." + BinaryParser.EXTENSION));
 			destination = fileChooser.showSaveDialog(Main.mainStage);
 		}
 		
 		if (destination != null)
 		{
-			XMLParser parser = new XMLParser();
-			parser.saveCircuit(getCurrentCircuitCanvas().circuit, destination.getPath(), true); // TODO: option to choose usage of hashes
-			getCurrentCircuitCanvas().currentSaveDirection = destination;
-			
-			String filename = destination.getName().replace(".xml", "");
-			getCurrentTab().setText(filename);
-			
-			Debug_Text.setText("Circuit saved at " + destination);
+			File savedAt = destination;
+			startSave(getCurrentTab(), getCurrentCircuitCanvas(), destination,
+					() -> Debug_Text.setText("Circuit saved at " + savedAt));
 		}
 		else
 		{
@@ -231,20 +295,17 @@ public class BlitzEdit implements javafx.fxml.Initializable
 		FileChooser fileChooser = new FileChooser();
 		fileChooser.setTitle("Save circuit diagram");
 		fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("XML", "*.xml"));
+		fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Binary circuit", "*." + BinaryParser.EXTENSION));
 		File destination = fileChooser.showSaveDialog(Main.mainStage);
 
 		if (destination != null)
 		{
-			XMLParser parser = new XMLParser();
-			parser.saveCircuit(getCurrentCircuitCanvas().circuit, destination.getPath(), true); // TODO: option to choose usage of hashes
-			getCurrentCircuitCanvas().currentSaveDirection = destination;
-			
-			String filename = destination.getName().replace(".xml", "");
-			getCurrentTab().setText(filename);
-			
-			JOptionPane.showConfirmDialog(null,
-					"Circuit saved at " + destination, "Save as",
-					JOptionPane.CLOSED_OPTION);
+			startSave(getCurrentTab(), getCurrentCircuitCanvas(), destination, () -> {
+				Debug_Text.setText("Circuit saved at " + destination);
+				Alert alert = new Alert(AlertType.INFORMATION, "Circuit saved at " + destination);
+				alert.setTitle("Save as");
+				alert.show();
+			});
 		}
 		else
 		{
@@ -267,14 +328,15 @@ public class BlitzEdit implements javafx.fxml.Initializable
 			}
 			
 			LibraryCanvas newCanvas = addLibrary(selectedDirectory.getName());
-			if(!newCanvas.addLibraryEntries(selectedDirectory)) //if no files got added
+			LibraryImportTask task = newCanvas.addLibraryEntries(selectedDirectory);
+			if(task == null) //if no files got added
 			{
 				removeCurrentLibraryTitlesPane();
 				Debug_Text.setText("Directory contains no valid xml files");
 			}
 			else
 			{
-				newCanvas.drawLibraryEntries();
+				startLibraryImport(getCurrentLibraryTitledPane(), newCanvas, task, true);
 			}
 			
 		}
@@ -379,6 +441,14 @@ public class BlitzEdit implements javafx.fxml.Initializable
 		GlobalSettings.SNAP_TO_GRID = GlobalSettings.SNAP_TO_GRID ? false : true;
 		getCurrentCircuitCanvas().refreshCanvas();
 	}
+	
+	@FXML
+	private void handleViewPerformanceHudOnOffAction(Event event)
+	{
+		Debug_Text.setText("Toggled Performance HUD");
+		
+		getCurrentCircuitCanvas().performanceHudOnOff();
+	}
 
 	@FXML
 	private void handleHelpAboutAction(Event event)
@@ -447,18 +517,10 @@ public class BlitzEdit implements javafx.fxml.Initializable
 		if (CircuitsTabPane != null)
 		{
 			Tab tab = new Tab(name);
-			AnchorPane root = new AnchorPane();
-			ScrollPane sp = new ScrollPane();
-			
-			CircuitCanvas canvas = new CircuitCanvas(sp);
+			CircuitCanvas canvas = new CircuitCanvas();
 
-			setAnchorForNode(canvas, 0.0);
-			setAnchorForNode(sp, 0.0);
-
-			sp.setContent(canvas);
-
-			tab.setContent(root);
-			tab.setContent(sp);
+			tab.setContent(canvas.getView());
+			tab.setUserData(canvas);
 
 			CircuitsTabPane.getTabs().add(tab);
 			CircuitsTabPane.getSelectionModel().select(tab);
@@ -499,7 +561,6 @@ public class BlitzEdit implements javafx.fxml.Initializable
 
 			library.setContent(root);
 			library.setContent(sp);
-			System.err.println(LibrariesAccordion.getMaxHeight() + " " + LibrariesAccordion.getMaxWidth());
 			LibrariesAccordion.getPanes().add(library);
 			LibrariesAccordion.setExpandedPane(library);
 
@@ -511,6 +572,151 @@ public class BlitzEdit implements javafx.fxml.Initializable
 		return null;
 	}
 
+	/**
+	 * Runs a {@link LibraryImportTask} on a background thread. While it is running, the header of the
+	 * library shows its progress and a button to cancel it.
+	 * 
+	 * @param	library			TitledPane of the library
+	 * @param	canvas			LibraryCanvas which created the task
+	 * @param	task			Task reading the blueprints of the library
+	 * @param	removeOnCancel	If true the library is removed when the task is cancelled or fails
+	 */
+	private void startLibraryImport(TitledPane library, LibraryCanvas canvas, LibraryImportTask task, boolean removeOnCancel)
+	{
+		EventHandler<WorkerStateEvent> aborted = event -> {
+			Debug_Text.setText("Import of library " + library.getText() + " cancelled");
+			if(removeOnCancel && LibrariesAccordion.getPanes().remove(library))
+			{
+				canvas.delete();
+				libraries.remove(canvas);
+			}
+		};
+		task.addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, aborted);
+		task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED, aborted);
+		startBackgroundTask(task, library::setGraphic, true, "library-import");
+	}
+	
+	/**
+	 * Runs a task on a background thread. While it is running, its progress is shown in the
+	 * graphic of a tab or pane and its messages in the status line.
+	 * 
+	 * @param	task			Task to run
+	 * @param	setGraphic		Sets the graphic showing the progress, called with null when the task is done
+	 * @param	cancellable		If true a button to cancel the task is shown
+	 * @param	threadName		Name of the background thread
+	 */
+	private void startBackgroundTask(Task<?> task, Consumer<Node> setGraphic, boolean cancellable, String threadName)
+	{
+		ProgressBar progress = new ProgressBar();
+		progress.setPrefWidth(60);
+		progress.progressProperty().bind(task.progressProperty());
+		HBox graphic = new HBox(5, progress);
+		if(cancellable)
+		{
+			Button cancel = new Button("Cancel");
+			cancel.setOnAction(event -> task.cancel());
+			graphic.getChildren().add(cancel);
+		}
+		setGraphic.accept(graphic);
+		
+		task.messageProperty().addListener((observable, oldMessage, newMessage) -> Debug_Text.setText(newMessage));
+		task.runningProperty().addListener((observable, wasRunning, running) -> {
+			if(!running)
+			{
+				setGraphic.accept(null);
+			}
+		});
+		
+		Thread thread = new Thread(task, threadName);
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Loads a circuit on a background thread and shows it in a canvas when it is loaded completely.
+	 * The canvas is disabled while the circuit is loaded.
+	 * 
+	 * @param	tab		Tab of the canvas
+	 * @param	canvas	Canvas showing the circuit
+	 * @param	file	File of the circuit
+	 */
+	private void startLoad(Tab tab, CircuitCanvas canvas, File file)
+	{
+		Task<Circuit> task = CircuitFileService.load(file, loadPrompts);
+		// changes made while loading would be replaced by the loaded circuit
+		lockWhileRunning(canvas, task);
+		task.setOnSucceeded(event -> {
+			if(task.getValue() != null)
+			{
+				canvas.setCircuit(task.getValue());
+				Debug_Text.setText("Circuit loaded from " + file);
+			}
+			else
+			{
+				Debug_Text.setText("Failed to load Circuit from " + file);
+			}
+		});
+		task.setOnCancelled(event -> Debug_Text.setText("Loading of " + file + " cancelled"));
+		task.setOnFailed(event -> {
+			task.getException().printStackTrace();
+			Debug_Text.setText("Failed to load Circuit from " + file);
+		});
+		startBackgroundTask(task, tab::setGraphic, true, "circuit-load");
+	}
+	
+	/**
+	 * Saves the circuit of a canvas on a background thread. The canvas is disabled while
+	 * the circuit is saved, so it can't be changed meanwhile.
+	 * 
+	 * @param	tab			Tab of the canvas
+	 * @param	canvas		Canvas showing the circuit
+	 * @param	destination	File the circuit is saved to
+	 * @param	onSaved		Called on the JavaFX application thread after the circuit was saved
+	 */
+	private void startSave(Tab tab, CircuitCanvas canvas, File destination, Runnable onSaved)
+	{
+		if (canvas.isLocked())
+		{
+			Debug_Text.setText("The circuit is already being loaded or saved.");
+			return;
+		}
+		
+		Task<Void> task = CircuitFileService.save(canvas.circuit, destination, true); // TODO: option to choose usage of hashes
+		// the circuit is read by the saving thread, it must not change until the task is done
+		lockWhileRunning(canvas, task);
+		task.setOnSucceeded(event -> {
+			canvas.currentSaveDirection = destination;
+			tab.setText(CircuitFormat.fromExtension(destination.getPath()).removeExtension(destination.getName()));
+			onSaved.run();
+		});
+		task.setOnFailed(event -> {
+			task.getException().printStackTrace();
+			Debug_Text.setText("Failed to save Circuit at " + destination);
+			Alert alert = new Alert(AlertType.ERROR, "Error occured while trying to save the Circuit to " + destination + ".\n"
+					+ task.getException().getLocalizedMessage());
+			alert.setTitle("Saving Error");
+			alert.show();
+		});
+		startBackgroundTask(task, tab::setGraphic, false, "circuit-save");
+	}
+	
+	/**
+	 * Locks the circuit of a canvas until a task loading or saving it is done.
+	 * 
+	 * @param	canvas	Canvas showing the circuit
+	 * @param	task	Task loading or saving the circuit
+	 */
+	private void lockWhileRunning(CircuitCanvas canvas, Task<?> task)
+	{
+		canvas.setLocked(true);
+		task.runningProperty().addListener((observable, wasRunning, running) -> {
+			if(!running)
+			{
+				canvas.setLocked(false);
+			}
+		});
+	}
+	
 	/**
 	 * Sets the anchor top, bottom, left and right positons for the javafx node.
 	 * 
@@ -1,52 +1,151 @@
 package blitzEdit.application;
 
+import java.awt.Rectangle;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Collection;
 import java.util.Vector;
 
 import blitzEdit.core.Circuit;
+import blitzEdit.core.CircuitListener;
 import blitzEdit.core.Component;
 import blitzEdit.core.Connector;
 import blitzEdit.core.Element;
 import blitzEdit.core.Line;
+import tools.FlightEvents;
 import tools.GlobalSettings;
+import tools.Metrics;
+import javafx.animation.AnimationTimer;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.scene.Cursor;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.MouseDragEvent;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import tools.GraphicDesignContainer;
 import tools.SelectionMode;
+import tools.SvgRenderer;
+import javafx.geometry.Orientation;
 import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
 
 
 /**
  * Canvas used for displaying the circuit with its components and connectors.
+ * The canvas is the middle one of three stacked layers: the grid is drawn once on a
+ * layer below, the selection rectangle and connector highlights on a layer above,
+ * so they can change without redrawing the circuit. Use {@link #getView()} to add
+ * the canvas to the scene graph.
+ * 
+ * The canvas only has the size of the visible area. The circuit is drawn with a world-to-screen
+ * transform, scrolling moves the view and only redraws the newly exposed parts. Changes of the circuit are reported by a {@link CircuitListener},
+ * only the changed areas of the circuit layer are repainted.
  * 
  * @author Chrisian Gärtner
  * @author David Schick
  */
 public class CircuitCanvas extends ResizableCanvas
 {
+	// elements are culled and damaged areas are reported by their unrotated size,
+	// the margin keeps rotated components and selection frames at the border visible
+	private static final double CULLING_MARGIN = 100;
+	
+	// more damaged areas are merged into one
+	private static final int MAX_DAMAGED_AREAS = 32;
+	
+	// space to scroll beyond the circuit
+	private static final double SCROLL_MARGIN = 500;
+	
+	// minimum distance of grid lines in pixels on the screen
+	private static final double MIN_GRID_SPACING = 4;
+	
+	// position and size of the performance HUD on the screen
+	private static final double HUD_MARGIN = 8;
+	private static final double HUD_WIDTH = 360;
+	private static final double HUD_LINE_HEIGHT = 16;
+	
+	// metrics of the drawn frames, shown by the performance HUD
+	private static final Metrics.Histogram FRAME_TIME = Metrics.histogram("canvas.frameTime", Metrics.Unit.NANOSECONDS);
+	private static final Metrics.Histogram FRAME_ALLOCATION = Metrics.histogram("canvas.frameAllocation", Metrics.Unit.BYTES);
+	private static final Metrics.Histogram ELEMENTS_DRAWN = Metrics.histogram("canvas.elementsDrawn", Metrics.Unit.COUNT);
+	private static final Metrics.Histogram ELEMENTS_CULLED = Metrics.histogram("canvas.elementsCulled", Metrics.Unit.COUNT);
+	private static final Metrics.Histogram LINES_DRAWN = Metrics.histogram("canvas.linesDrawn", Metrics.Unit.COUNT);
+	
 	GraphicsContext gc;
+	GraphicsContext gridGc;
+	GraphicsContext overlayGc;
 	Circuit circuit;
-	ScrollPane sp;
 	File currentSaveDirection;
 	
 	private MouseEvent currentMousePosition;
 	
 	private CircuitCanvas ref = this;
+	private BorderPane view;
+	private StackPane layers;
+	private Canvas gridLayer;
+	private Canvas overlayLayer;
+	private ScrollBar hScrollBar;
+	private ScrollBar vScrollBar;
+	private boolean updatingScrollBars;
+	
+	// position of the upper left corner of the canvas in the circuit
+	private double viewX;
+	private double viewY;
+	
+	// screen position of the mouse while moving the view with the middle mouse button
+	private double panX;
+	private double panY;
+	
+	// pixels the view moved since the last pulse, see shiftCircuitLayer()
+	private double pendingPanX;
+	private double pendingPanY;
+	private WritableImage panBuffer;
+	
+	// state of the cached grid, the grid layer is only redrawn when it changes
+	private boolean gridDisplayed;
+	private boolean gridValid;
+	
+	// current selection rect, null if the user isn't selecting
+	private Rectangle2D selectRect;
+	
+	// redraws requested since the last pulse, see requestRefresh()
+	private boolean refreshRequested;
+	private boolean overlayRefreshRequested;
+	private AnimationTimer renderTimer;
+	
+	// areas of the circuit layer changed since the last pulse, see repaintDamagedAreas()
+	private ArrayList<Rectangle2D> damagedAreas = new ArrayList<Rectangle2D>();
+	
+	// state of the current frame, see beginFrame()
+	private int frameDepth;
+	private long frameStart;
+	private long frameAllocation;
+	private int frameElementsDrawn;
+	private int frameElementsCulled;
+	private int frameLinesDrawn;
+	
+	private CircuitListener circuitListener;
 	private ContextMenu rightClickMenu;
 	private Vector<Element> currentSelectedElements = new Vector<Element>();
 	private Connector currentSelectedConnector;
 	
+	// true while the circuit must not be changed, see setLocked()
+	private boolean locked;
+	
 	private boolean isSelectingMultipleElements;
 	private boolean hasSelectedMultipleElements;
 	private boolean canSelectMultipleElements;
@@ -64,20 +163,66 @@ public class CircuitCanvas extends ResizableCanvas
 
 	/**
 	 * Sets the mouse event handler and adds a new {@link Circuit}.
-	 * 
-	 * @param	scrollPane	Reference to the scroll panel the canvas is located
 	 */
-	public CircuitCanvas(ScrollPane scrollPane)
+	public CircuitCanvas()
 	{
 		gc = getGraphicsContext2D();
 		circuit = new Circuit();
-		sp = scrollPane;
+		
+		gridLayer = new Canvas();
+		overlayLayer = new Canvas();
+		for (Canvas layer : new Canvas[] {gridLayer, overlayLayer})
+		{
+			layer.widthProperty().bind(widthProperty());
+			layer.heightProperty().bind(heightProperty());
+			layer.setMouseTransparent(true);
+			layer.setManaged(false);
+		}
+		gridGc = gridLayer.getGraphicsContext2D();
+		overlayGc = overlayLayer.getGraphicsContext2D();
+		layers = new StackPane(gridLayer, this, overlayLayer);
+		layers.setMinSize(0, 0);
+		
+		hScrollBar = new ScrollBar();
+		vScrollBar = new ScrollBar();
+		vScrollBar.setOrientation(Orientation.VERTICAL);
+		view = new BorderPane(layers, null, vScrollBar, hScrollBar, null);
+		
+		renderTimer = new AnimationTimer()
+		{
+			@Override
+			public void handle(long now)
+			{
+				// the timer only runs while redraws are pending
+				stop();
+				beginFrame();
+				try
+				{
+					renderPendingChanges();
+				}
+				finally
+				{
+					endFrame();
+				}
+			}
+		};
+		
+		circuitListener = new CircuitListener()
+		{
+			@Override
+			public void areaChanged(Rectangle area)
+			{
+				addDamagedArea(area);
+			}
+		};
+		circuit.addCircuitListener(circuitListener);
 		
 		onMousePresseHandler();
 		onMouseDraggedHandler();
 		onMouseReleasedHandler();
 		onMouseMovedHandler();
 		onScrollEventHandler();
+		onViewportChangedHandler();
 		DragAndDropElements();
 		initiateRightClickMenu();
 	}
@@ -86,7 +231,7 @@ public class CircuitCanvas extends ResizableCanvas
 	 * Adds the event handler for the mouse pressed event. 
 	 * Primary button click used selecting elements and connecting {@link Connector},
 	 * secondary button used for right click menu and 
-	 * middle mouse button used for moving the viewport in the scroll panel.
+	 * middle mouse button used for moving the view.
 	 */
 	private void onMousePresseHandler()
 	{
@@ -100,18 +245,16 @@ public class CircuitCanvas extends ResizableCanvas
 				if (click.isSecondaryButtonDown()) //TODO
 				{
 					rightClickMenu.show(ref, click.getScreenX(), click.getScreenY());
-
-					System.err.println("secondary click");
 				}
 				else if (click.isPrimaryButtonDown())
 				{
 					if(currentSelectedConnector != null)
 					{
-						if(connectConnector(click.getX(), click.getY())) // connect worked
+						if(connectConnector(getWorldX(click), getWorldY(click))) // connect worked
 						{
 							
 						}
-						else if(disconnectConnector(click.getX(), click.getY())) // disconnect worked
+						else if(disconnectConnector(getWorldX(click), getWorldY(click))) // disconnect worked
 						{
 							
 						}
@@ -119,40 +262,35 @@ public class CircuitCanvas extends ResizableCanvas
 						{
 							deselectAll();
 							currentSelectedConnector = null;
-							selectElement(click.getX(), click.getY());
+							selectElement(getWorldX(click), getWorldY(click));
 						}
 						
-						refreshCanvas();
+						requestOverlayRefresh();
 					}
 					else if (click.isShiftDown())
 					{
 						currentSelectedConnector = null;
-						selectAdditionalElement(click.getX(), click.getY());
+						selectAdditionalElement(getWorldX(click), getWorldY(click));
 					}
 					else if(!hasSelectedMultipleElements)
 					{
 						currentSelectedConnector = null;
-						selectElement(click.getX(), click.getY());
+						selectElement(getWorldX(click), getWorldY(click));
 					}
 					
 					canSelectMultipleElements = true;
 
-					clickX = click.getX();
-					clickY = click.getY();
-					dragX = click.getX();
-					dragY = click.getY();
-					
-					refreshCanvas();
+					clickX = getWorldX(click);
+					clickY = getWorldY(click);
+					dragX = getWorldX(click);
+					dragY = getWorldY(click);
 					
-					System.err.println("primary click");
+					requestOverlayRefresh();
 				}
 				else if (click.isMiddleButtonDown())
 				{
-					clickX = click.getX();
-					clickY = click.getY();
-					dragX = clickX;
-					dragY = clickY;
-					System.err.println("middle mouse click");
+					panX = click.getX();
+					panY = click.getY();
 				}
 				
 			}
@@ -162,7 +300,7 @@ public class CircuitCanvas extends ResizableCanvas
 	/**
 	 * Adds the event handler for the mouse drag event. 
 	 * Primary button click used for moving one or multiple elements,
-	 * middle mouse button used for moving the viewport in the scroll panel.
+	 * middle mouse button used for moving the view.
 	 */
 	private void onMouseDraggedHandler()
 	{
@@ -171,7 +309,6 @@ public class CircuitCanvas extends ResizableCanvas
 			//moved wird mit true initialisiert, damit dragX und Y beim ersten aufruf
 			//gesetzt sind
 			boolean moved = true;
-			double prevScaleFactor = 1;
 			@Override
 			public void handle(MouseEvent click)
 			{
@@ -182,56 +319,38 @@ public class CircuitCanvas extends ResizableCanvas
 					{
 						//wurde der drag handler gerade erst aufgerufen, wird
 						//initialDrag = false;
-						moved = translateElements(currentSelectedElements, click.getX() - dragX, click.getY() - dragY);
+						moved = translateElements(currentSelectedElements, getWorldX(click) - dragX, getWorldY(click) - dragY);
             
 						//der mauspunkt als ursprungspunkt f�r die translation uebernommen
 						if (moved)
 						{
-							dragX = click.getX();
-							dragY = click.getY();
+							dragX = getWorldX(click);
+							dragY = getWorldY(click);
 						}
 						changeCursorStyle(GraphicDesignContainer.move_cursor);
-						refreshCanvas();
-
-						System.err.println("move multiple elements");
 					}
 					// only move 1 element
 					else if (!currentSelectedElements.isEmpty())
 					{
 						for (Element e : currentSelectedElements)
 						{
-							moveElement(e, click.getX(), click.getY());
+							moveElement(e, getWorldX(click), getWorldY(click));
 						}
 						changeCursorStyle(GraphicDesignContainer.move_cursor);
-						refreshCanvas();
-
-						System.err.println("move element");
 					}
 					// draw the selection rect
 					else if (canSelectMultipleElements)
 					{
-						drawSelectRect(click.getX(), click.getY());
+						drawSelectRect(getWorldX(click), getWorldY(click));
 						isSelectingMultipleElements = true;
-
-						System.err.println("draw select rect");
 					}
 				}
 				else if(click.isMiddleButtonDown())
 				{
-					// checkt, ob sich die zoomstufe ge�ndert hat, um zu verhindern
-					// dass sich durch den ver�nderten coordinatenursprung eine falsche
-					// differenz zwischen vorherigem und neuem wert bildet.
-					if (prevScaleFactor == canvasScaleFactor)
-					{
-						double diffx = (click.getX() - dragX)/(ref.getWidth() * Math.pow(canvasScaleFactor, -1));
-						double diffy = (click.getY() - dragY)/(ref.getHeight() * Math.pow(canvasScaleFactor, -1));
-					
-						sp.setHvalue(sp.getHvalue() - diffx);
-						sp.setVvalue(sp.getVvalue() - diffy);
-					}
-					prevScaleFactor = canvasScaleFactor;
-					dragX = click.getX();
-					dragY = click.getY();
+					// the mouse moves in screen coordinates, the view in world coordinates
+					setView(viewX - (click.getX() - panX) / canvasScaleFactor, viewY - (click.getY() - panY) / canvasScaleFactor);
+					panX = click.getX();
+					panY = click.getY();
 					
 					changeCursorStyle(GraphicDesignContainer.move_cursor);
 				}
@@ -358,13 +477,12 @@ public class CircuitCanvas extends ResizableCanvas
 				{
 					deselectAll();
 					Component newComp = (Component) BlitzEdit.dragAndDropElement;
-					moveElement(newComp, click.getX(), click.getY());
+					moveElement(newComp, getWorldX(click), getWorldY(click));
 					if (!circuit.containsElement(newComp))
 						circuit.addElement(newComp);
 					selectElement(newComp);
 					refreshCanvas();
 
-					System.err.println(click.getX() + " " + click.getY());
 					BlitzEdit.dragAndDropElement = null;
 				}
 			}
@@ -376,8 +494,7 @@ public class CircuitCanvas extends ResizableCanvas
 			@Override
 			public void handle(MouseDragEvent click)
 			{
-				moveElement(currentSelectedElements.get(0), click.getX(), click.getY());
-				refreshCanvas();
+				moveElement(currentSelectedElements.get(0), getWorldX(click), getWorldY(click));
 			}
 		});
 		
@@ -413,12 +530,11 @@ public class CircuitCanvas extends ResizableCanvas
 				
 				// deselect multiple elements when pressing and releasing
 				// mouse at the same position
-				if (hasSelectedMultipleElements && (click.getX() == clickX && click.getY() == clickY))
+				if (hasSelectedMultipleElements && (getWorldX(click) == clickX && getWorldY(click) == clickY))
 				{
 
 					deselectCurrentSelectedElements();
 					hasSelectedMultipleElements = false;
-					System.err.println("release muliple elements");
 				}
 				// deselect single element when releasing
 				else if (!currentSelectedElements.isEmpty())
@@ -429,7 +545,7 @@ public class CircuitCanvas extends ResizableCanvas
 				// in the selection rect
 				else if (isSelectingMultipleElements)
 				{
-					selectElements(clickX, clickY, click.getX(), click.getY());
+					selectElements(clickX, clickY, getWorldX(click), getWorldY(click));
 					if (!currentSelectedElements.isEmpty())
 					{
 						isSelectingMultipleElements = false;
@@ -438,13 +554,13 @@ public class CircuitCanvas extends ResizableCanvas
 				}
 
 				canSelectMultipleElements = false;
+				selectRect = null;
 				changeCursorStyle(GraphicDesignContainer.default_cursor);
-				refreshCanvas();
+				requestOverlayRefresh();
 				clickX = 0;
 				clickY = 0;
 				dragX = 0;
 				dragY = 0;
-				System.err.println("release");
 			}
 		});
 	}
@@ -455,7 +571,7 @@ public class CircuitCanvas extends ResizableCanvas
 	 */
 	private void onScrollEventHandler()
 	{
-		sp.addEventFilter(ScrollEvent.ANY, new EventHandler<ScrollEvent>(){
+		view.addEventFilter(ScrollEvent.ANY, new EventHandler<ScrollEvent>(){
 			@Override
 			public void handle(ScrollEvent click)
 			{
@@ -486,6 +602,176 @@ public class CircuitCanvas extends ResizableCanvas
 		});
 	}
 	
+	/**
+	 * Adds the listeners for the scroll bars, which move the view.
+	 */
+	private void onViewportChangedHandler()
+	{
+		ChangeListener<Number> scrollListener = new ChangeListener<Number>()
+		{
+			@Override
+			public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue)
+			{
+				if (!updatingScrollBars)
+				{
+					setView(hScrollBar.getValue(), vScrollBar.getValue());
+				}
+			}
+		};
+		hScrollBar.valueProperty().addListener(scrollListener);
+		vScrollBar.valueProperty().addListener(scrollListener);
+	}
+	
+	/**
+	 * Moves the view, so the world position x,y is in the upper left corner of the canvas.
+	 * The view can't be moved further left or up than the origin or the circuit and its margin.
+	 * The view is moved by whole pixels, so the content of the canvas can be reused.
+	 * The newly exposed parts are drawn with the next pulse.
+	 * 
+	 * @param	x		X position in the circuit
+	 * @param	y		Y position in the circuit
+	 */
+	private void setView(double x, double y)
+	{
+		Rectangle bounds = circuit.getBounds();
+		x = Math.round(Math.max(bounds == null ? 0 : scrollMin(bounds.x), x) * canvasScaleFactor) / canvasScaleFactor;
+		y = Math.round(Math.max(bounds == null ? 0 : scrollMin(bounds.y), y) * canvasScaleFactor) / canvasScaleFactor;
+		if (x == viewX && y == viewY)
+			return;
+		
+		pendingPanX += (x - viewX) * canvasScaleFactor;
+		pendingPanY += (y - viewY) * canvasScaleFactor;
+		viewX = x;
+		viewY = y;
+		updateTransform();
+		updateScrollBars();
+		renderTimer.start();
+	}
+	
+	/**
+	 * Sets the world-to-screen transform of the circuit and overlay layer.
+	 */
+	private void updateTransform()
+	{
+		gc.setTransform(canvasScaleFactor, 0, 0, canvasScaleFactor, -viewX * canvasScaleFactor, -viewY * canvasScaleFactor);
+		overlayGc.setTransform(canvasScaleFactor, 0, 0, canvasScaleFactor, -viewX * canvasScaleFactor, -viewY * canvasScaleFactor);
+		gridValid = false;
+	}
+	
+	/**
+	 * Updates range and position of the scroll bars. The range covers the origin,
+	 * the bounds of the circuit with a margin and the current view.
+	 */
+	private void updateScrollBars()
+	{
+		Rectangle bounds = circuit.getBounds();
+		updatingScrollBars = true;
+		if (bounds == null)
+		{
+			updateScrollBar(hScrollBar, viewX, getWidth() / canvasScaleFactor, 0, SCROLL_MARGIN);
+			updateScrollBar(vScrollBar, viewY, getHeight() / canvasScaleFactor, 0, SCROLL_MARGIN);
+		}
+		else
+		{
+			updateScrollBar(hScrollBar, viewX, getWidth() / canvasScaleFactor,
+					scrollMin(bounds.x), Math.max(0, bounds.x + bounds.width) + SCROLL_MARGIN);
+			updateScrollBar(vScrollBar, viewY, getHeight() / canvasScaleFactor,
+					scrollMin(bounds.y), Math.max(0, bounds.y + bounds.height) + SCROLL_MARGIN);
+		}
+		updatingScrollBars = false;
+	}
+	
+	/**
+	 * Returns the lowest position of the view on one axis.
+	 * 
+	 * @param	boundsMin	Lowest position of the circuit on the axis
+	 * @return	double		The origin, or the position of the circuit minus the margin if the circuit reaches below 0
+	 */
+	private static double scrollMin(int boundsMin)
+	{
+		return boundsMin < 0 ? boundsMin - SCROLL_MARGIN : 0;
+	}
+	
+	private static void updateScrollBar(ScrollBar bar, double position, double visible, double start, double end)
+	{
+		start = Math.min(start, position);
+		end = Math.max(end, position + visible);
+		double max = Math.max(start, end - visible);
+		bar.setMin(start);
+		bar.setMax(max);
+		// the thumb size is visibleAmount relative to the range
+		bar.setVisibleAmount(end > start ? (max - start) * visible / (end - start) : 0);
+		bar.setBlockIncrement(visible * 0.9);
+		bar.setUnitIncrement(GraphicDesignContainer.grid_spacing);
+		bar.setValue(position);
+	}
+	
+	/**
+	 * Moves the content of the circuit layer by the pending pan and marks the
+	 * newly exposed strips as damaged.
+	 */
+	private void shiftCircuitLayer()
+	{
+		double dx = pendingPanX;
+		double dy = pendingPanY;
+		pendingPanX = 0;
+		pendingPanY = 0;
+		
+		double width = getWidth();
+		double height = getHeight();
+		if (Math.abs(dx) >= width || Math.abs(dy) >= height)
+		{
+			refreshCanvas();
+			return;
+		}
+		
+		SnapshotParameters params = new SnapshotParameters();
+		params.setFill(Color.TRANSPARENT);
+		if (panBuffer != null && (panBuffer.getWidth() != (int) width || panBuffer.getHeight() != (int) height))
+			panBuffer = null;
+		panBuffer = snapshot(params, panBuffer);
+		
+		gc.save();
+		gc.setTransform(1, 0, 0, 1, 0, 0);
+		gc.clearRect(0, 0, width, height);
+		gc.drawImage(panBuffer, -dx, -dy);
+		gc.restore();
+		
+		// exposed strips in world coordinates
+		double visibleWidth = width / canvasScaleFactor;
+		double visibleHeight = height / canvasScaleFactor;
+		if (dx > 0)
+			damagedAreas.add(new Rectangle2D(viewX + visibleWidth - dx / canvasScaleFactor, viewY, dx / canvasScaleFactor, visibleHeight));
+		else if (dx < 0)
+			damagedAreas.add(new Rectangle2D(viewX, viewY, -dx / canvasScaleFactor, visibleHeight));
+		if (dy > 0)
+			damagedAreas.add(new Rectangle2D(viewX, viewY + visibleHeight - dy / canvasScaleFactor, visibleWidth, dy / canvasScaleFactor));
+		else if (dy < 0)
+			damagedAreas.add(new Rectangle2D(viewX, viewY, visibleWidth, -dy / canvasScaleFactor));
+	}
+	
+	/**
+	 * Converts the x position of a mouse event on this canvas to the circuit.
+	 * 
+	 * @param	event		Mouse event on this canvas
+	 * @return	double		X position in the circuit
+	 */
+	private double getWorldX(MouseEvent event)
+	{
+		return event.getX() / canvasScaleFactor + viewX;
+	}
+	
+	/**
+	 * Converts the y position of a mouse event on this canvas to the circuit.
+	 * 
+	 * @param	event		Mouse event on this canvas
+	 * @return	double		Y position in the circuit
+	 */
+	private double getWorldY(MouseEvent event)
+	{
+		return event.getY() / canvasScaleFactor + viewY;
+	}
+	
 	/**
 	 * Adds the event handler when mouse is moving in the canvas.
 	 * Used for saving the current mouse position in the canvas.
@@ -512,96 +798,521 @@ public class CircuitCanvas extends ResizableCanvas
 		{
 			GlobalSettings.DISPLAY_GRID = true;
 		}
+		drawGrid();
 	}
 
 	/**
-	 * Draws a grid of lines on the graphical context of this canvas.
+	 * Returns the view of this canvas, which has to be added to the scene graph
+	 * instead of the canvas itself.
+	 * 
+	 * @return	Node	Pane containing the stacked grid layer, this canvas and overlay layer and the scroll bars
+	 */
+	public Node getView()
+	{
+		return view;
+	}
+	
+	/**
+	 * Locks the circuit of this canvas against changes, e.g. while it is saved on another thread.
+	 * The view is disabled and pasting, deleting and rotating elements do nothing while it is locked.
+	 * 
+	 * @param	locked	True to lock the circuit
+	 */
+	public void setLocked(boolean locked)
+	{
+		this.locked = locked;
+		view.setDisable(locked);
+	}
+	
+	/**
+	 * @return	boolean		True if the circuit is locked against changes, see {@link #setLocked(boolean)}
+	 */
+	public boolean isLocked()
+	{
+		return locked;
+	}
+
+	/**
+	 * Draws a grid of lines on the grid layer below this canvas.
 	 * Use the constants in the {@link GraphicDesignContainer} to change the design of the grid.
-	 * Called everytime the refreshCanvas() is executed.
+	 * Called by refreshCanvas() when the view, the size of the canvas or the grid setting changed.
 	 */
 	public void drawGrid()
 	{
-		if(GlobalSettings.DISPLAY_GRID) 
+		gridDisplayed = GlobalSettings.DISPLAY_GRID;
+		gridValid = true;
+		
+		gridGc.clearRect(0, 0, getWidth(), getHeight());
+		double lineSpace = GraphicDesignContainer.grid_spacing * canvasScaleFactor;
+		
+		// a grid too dense to see the lines isn't drawn
+		if(GlobalSettings.DISPLAY_GRID && lineSpace >= MIN_GRID_SPACING) 
 		{
-			gc.save();
-			gc.clearRect(0, 0, getWidth(), getHeight());
+			gridGc.save();
+			gridGc.setStroke(GraphicDesignContainer.grid_color);
+			gridGc.setLineWidth(GraphicDesignContainer.grid_line_width);
 			
-			gc.setStroke(GraphicDesignContainer.grid_color);
-			gc.setLineWidth(GraphicDesignContainer.grid_line_width);
-			double lineSpace = GraphicDesignContainer.grid_spacing;
+			// lines are drawn in screen coordinates at the grid positions of the circuit
+			double startX = Math.ceil(viewX / GraphicDesignContainer.grid_spacing) * lineSpace - viewX * canvasScaleFactor;
+			double startY = Math.ceil(viewY / GraphicDesignContainer.grid_spacing) * lineSpace - viewY * canvasScaleFactor;
 
 			// vertical lines
-			for (int i = 0; i < getWidth(); i += lineSpace)
+			for (double i = startX; i < getWidth(); i += lineSpace)
 			{
-				gc.strokeLine(i, 0, i, getHeight());
+				gridGc.strokeLine(i, 0, i, getHeight());
 			}
 
 			// horizontal lines
-			for (int i = (int) lineSpace; i < getHeight(); i += lineSpace)
+			for (double i = startY; i < getHeight(); i += lineSpace)
 			{
-				gc.strokeLine(0, i, getWidth(), i);
+				gridGc.strokeLine(0, i, getWidth(), i);
 			}
-			gc.restore();
+			gridGc.restore();
 		}
-		else 
+	}
+
+	/**
+	 * Replaces the displayed circuit, e.g. by one loaded in the background, and redraws the canvas.
+	 * The selection of the old circuit is discarded.
+	 * 
+	 * @param	newCircuit	Circuit to display
+	 */
+	public void setCircuit(Circuit newCircuit)
+	{
+		circuit.removeCircuitListener(circuitListener);
+		circuit = newCircuit;
+		circuit.addCircuitListener(circuitListener);
+		
+		currentSelectedElements.clear();
+		currentSelectedConnector = null;
+		hasSelectedMultipleElements = false;
+		isSelectingMultipleElements = false;
+		selectRect = null;
+		updateScrollBars();
+		refreshCanvas();
+	}
+	
+	/**
+	 * Draws the changes requested since the last pulse. Called by the render timer once per pulse.
+	 */
+	private void renderPendingChanges()
+	{
+		if (refreshRequested)
 		{
-			gc.save();
-			gc.clearRect(0, 0, getWidth(), getHeight());
-			gc.restore();
+			refreshCanvas();
+			return;
 		}
+		if (!damagedAreas.isEmpty())
+		{
+			// the circuit might have grown
+			updateScrollBars();
+		}
+		if (pendingPanX != 0 || pendingPanY != 0)
+		{
+			shiftCircuitLayer();
+			overlayRefreshRequested = true;
+		}
+		if (!gridValid)
+		{
+			drawGrid();
+		}
+		// highlighted connectors are drawn on top of the damaged areas
+		if (!damagedAreas.isEmpty() && currentSelectedConnector != null)
+		{
+			overlayRefreshRequested = true;
+		}
+		repaintDamagedAreas();
+		if (overlayRefreshRequested)
+		{
+			refreshOverlay();
+		}
+	}
+	
+	/**
+	 * Starts measuring a frame for the performance HUD. Frames can be nested, e.g. a refresh
+	 * during a pulse, only the outermost one is measured. Every call has to be followed by {@link #endFrame()}.
+	 */
+	private void beginFrame()
+	{
+		if (frameDepth++ > 0)
+			return;
+		frameStart = Metrics.now();
+		frameAllocation = Metrics.allocatedBytes();
+		frameElementsDrawn = 0;
+		frameElementsCulled = 0;
+		frameLinesDrawn = 0;
+	}
+	
+	/**
+	 * Records the metrics of the frame started by {@link #beginFrame()} and redraws the performance HUD.
+	 */
+	private void endFrame()
+	{
+		if (--frameDepth > 0 || frameStart == 0)
+			return;
+		FRAME_TIME.recordSince(frameStart);
+		if (frameAllocation >= 0)
+		{
+			FRAME_ALLOCATION.record(Metrics.allocatedBytes() - frameAllocation);
+		}
+		ELEMENTS_DRAWN.record(frameElementsDrawn);
+		ELEMENTS_CULLED.record(frameElementsCulled);
+		LINES_DRAWN.record(frameLinesDrawn);
+		drawPerformanceHud();
+	}
+	
+	/**
+	 * Draws the performance HUD in the upper left corner of the overlay layer,
+	 * if it is switched on, see {@link #performanceHudOnOff()}.
+	 * Shows the metrics of the recent frames of all canvases.
+	 */
+	private void drawPerformanceHud()
+	{
+		if (!GlobalSettings.DISPLAY_PERFORMANCE_HUD || !Metrics.isEnabled())
+			return;
+		
+		Metrics.Unit time = Metrics.Unit.NANOSECONDS;
+		String[] lines = {
+			"Frame     p50 " + time.format(FRAME_TIME.percentile(50)) + "  p95 " + time.format(FRAME_TIME.percentile(95))
+					+ "  p99 " + time.format(FRAME_TIME.percentile(99)),
+			"Elements  drawn " + ELEMENTS_DRAWN.last() + "  culled " + ELEMENTS_CULLED.last(),
+			"Wires     drawn " + LINES_DRAWN.last(),
+			"Hit test  p50 " + time.format(Circuit.HIT_TEST_TIME.percentile(50)) + "  p95 " + time.format(Circuit.HIT_TEST_TIME.percentile(95)),
+			"Alloc     " + (frameAllocation >= 0 ? Metrics.Unit.BYTES.format(FRAME_ALLOCATION.mean()) + " per frame" : "not supported")
+		};
 		
+		overlayGc.save();
+		overlayGc.setTransform(1, 0, 0, 1, 0, 0);
+		double height = (lines.length + 0.5) * HUD_LINE_HEIGHT;
+		// the background is translucent, the text of the last frame must not shine through
+		overlayGc.clearRect(HUD_MARGIN, HUD_MARGIN, HUD_WIDTH, height);
+		overlayGc.setFill(GraphicDesignContainer.hud_background_color);
+		overlayGc.fillRect(HUD_MARGIN, HUD_MARGIN, HUD_WIDTH, height);
+		overlayGc.setFill(GraphicDesignContainer.hud_text_color);
+		overlayGc.setFont(GraphicDesignContainer.hud_font);
+		for (int i = 0; i < lines.length; i++)
+		{
+			overlayGc.fillText(lines[i], 2 * HUD_MARGIN, HUD_MARGIN + (i + 1) * HUD_LINE_HEIGHT);
+		}
+		overlayGc.restore();
 	}
-
+	
+	/**
+	 * Switches the performance HUD of all canvases on or off. The metrics are only recorded while it is shown.
+	 */
+	public void performanceHudOnOff()
+	{
+		GlobalSettings.DISPLAY_PERFORMANCE_HUD = !GlobalSettings.DISPLAY_PERFORMANCE_HUD;
+		Metrics.setEnabled(GlobalSettings.DISPLAY_PERFORMANCE_HUD);
+		refreshCanvas();
+	}
+	
 	/**
 	 * Used for redrawing the content of the canvas when changes to elements of the circuit occured.
+	 * The grid is only redrawn if it changed.
 	 */
 	public void refreshCanvas()
 	{
-		drawGrid();
+		beginFrame();
+		try
+		{
+			refreshLayers();
+		}
+		finally
+		{
+			endFrame();
+		}
+	}
+	
+	/**
+	 * Redraws the grid if it changed, the circuit layer and the overlay layer. Used by refreshCanvas().
+	 */
+	private void refreshLayers()
+	{
+		FlightEvents.CanvasRefresh event = new FlightEvents.CanvasRefresh();
+		event.begin();
+		refreshRequested = false;
+		overlayRefreshRequested = false;
+		damagedAreas.clear();
+		pendingPanX = 0;
+		pendingPanY = 0;
+		boolean gridRedrawn = !gridValid || gridDisplayed != GlobalSettings.DISPLAY_GRID;
+		if (gridRedrawn)
+		{
+			drawGrid();
+		}
+		clearLayer(gc);
 		drawAllCircuitElements();
+		refreshOverlay();
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.zoom = canvasScaleFactor;
+			event.gridRedrawn = gridRedrawn;
+			event.circuitElements = circuit.getElements().size();
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Marks the canvas to be redrawn with the next pulse. Used by mouse and scroll events,
+	 * which can occur several times per frame, so the canvas is redrawn at most once per frame.
+	 * Changes to the circuit are still applied immediately.
+	 */
+	public void requestRefresh()
+	{
+		refreshRequested = true;
+		renderTimer.start();
+	}
+	
+	/**
+	 * Marks the overlay layer to be redrawn with the next pulse, see {@link #requestRefresh()}.
+	 */
+	public void requestOverlayRefresh()
+	{
+		overlayRefreshRequested = true;
+		renderTimer.start();
+	}
+	
+	/**
+	 * Clears a layer, independent of its transform.
+	 * 
+	 * @param	layerGc		Graphical context of the layer
+	 */
+	private void clearLayer(GraphicsContext layerGc)
+	{
+		layerGc.save();
+		layerGc.setTransform(1, 0, 0, 1, 0, 0);
+		layerGc.clearRect(0, 0, getWidth(), getHeight());
+		layerGc.restore();
+	}
+	
+	/**
+	 * Marks an area of the circuit layer to be repainted with the next pulse.
+	 * Called by the circuit for every changed element and line.
+	 * 
+	 * @param	area	Changed area in canvas coordinates
+	 */
+	private void addDamagedArea(Rectangle area)
+	{
+		Rectangle2D damaged = new Rectangle2D(area.x - CULLING_MARGIN, area.y - CULLING_MARGIN,
+				area.width + 2*CULLING_MARGIN, area.height + 2*CULLING_MARGIN);
+		
+		if (damagedAreas.size() >= MAX_DAMAGED_AREAS)
+		{
+			// merge all areas, repainting one big area is cheaper than many small ones
+			for (Rectangle2D r : damagedAreas)
+			{
+				damaged = union(damaged, r);
+			}
+			damagedAreas.clear();
+		}
+		damagedAreas.add(damaged);
+		renderTimer.start();
+	}
+	
+	/**
+	 * Repaints the damaged areas of the circuit layer. Each area is cleared and all lines
+	 * and elements touching it are redrawn, clipped to the area.
+	 */
+	private void repaintDamagedAreas()
+	{
+		Rectangle2D visible = getVisibleRect();
+		for (Rectangle2D area : damagedAreas)
+		{
+			if (!area.intersects(visible))
+				continue;
+			
+			gc.save();
+			gc.clearRect(area.getMinX(), area.getMinY(), area.getWidth(), area.getHeight());
+			gc.beginPath();
+			gc.rect(area.getMinX(), area.getMinY(), area.getWidth(), area.getHeight());
+			gc.clip();
+			
+			// also draws elements whose rotated image reaches into the area
+			drawCircuitElements(new Rectangle2D(area.getMinX() - CULLING_MARGIN, area.getMinY() - CULLING_MARGIN,
+					area.getWidth() + 2*CULLING_MARGIN, area.getHeight() + 2*CULLING_MARGIN), true);
+			gc.restore();
+		}
+		damagedAreas.clear();
+	}
+	
+	private static Rectangle2D union(Rectangle2D r1, Rectangle2D r2)
+	{
+		double minX = Math.min(r1.getMinX(), r2.getMinX());
+		double minY = Math.min(r1.getMinY(), r2.getMinY());
+		return new Rectangle2D(minX, minY, Math.max(r1.getMaxX(), r2.getMaxX()) - minX, Math.max(r1.getMaxY(), r2.getMaxY()) - minY);
+	}
+	
+	/**
+	 * Redraws the overlay layer only: the current selected connector, the highlighted
+	 * connectors and the selection rect. Used for interactions that don't change the circuit.
+	 */
+	public void refreshOverlay()
+	{
+		overlayRefreshRequested = false;
+		clearLayer(overlayGc);
+		
+		// prevent overlapping from lines etc. and draw current selected connector last
+		if(currentSelectedConnector != null)
+		{
+			currentSelectedConnector.draw(overlayGc, 1.0, currentSelectedConnector.getSelectionMode());
+			
+			Rectangle2D visible = getVisibleRect();
+			highlightConnectors(circuit.getElementsByPosition(visible.getMinX(), visible.getMinY(), visible.getWidth(), visible.getHeight()));
+		}
+		
+		if (selectRect != null)
+		{
+			overlayGc.save();
+			overlayGc.setStroke(GraphicDesignContainer.selection_rect_color);
+			overlayGc.strokeRect(selectRect.getMinX(), selectRect.getMinY(), selectRect.getWidth(), selectRect.getHeight());
+			overlayGc.restore();
+		}
+		
+		drawPerformanceHud();
+	}
 
+	/**
+	 * Returns the part of the circuit that is visible on the canvas,
+	 * enlarged by CULLING_MARGIN. Considers the position of the view and the scale of the canvas.
+	 * 
+	 * @return	Rectangle2D		Visible area in circuit coordinates
+	 */
+	public Rectangle2D getVisibleRect()
+	{
+		return new Rectangle2D(viewX - CULLING_MARGIN, viewY - CULLING_MARGIN,
+				getWidth() / canvasScaleFactor + 2*CULLING_MARGIN,
+				getHeight() / canvasScaleFactor + 2*CULLING_MARGIN);
 	}
 
 	/**
-	 * Draws all elements in the circuit of this canvas according to selection mode.
+	 * Draws all visible elements in the circuit of this canvas according to selection mode.
 	 * Called everytime the refreshCanvas() is executed.
 	 */
-	private synchronized void drawAllCircuitElements()
+	private void drawAllCircuitElements()
 	{
-		ArrayList<Line> lines = circuit.getLines();
-		for(Line line : lines)
+		drawCircuitElements(getVisibleRect(), false);
+	}
+	
+	/**
+	 * Draws the lines and elements in an area of the circuit according to selection mode.
+	 * 
+	 * @param	visible		Area of the circuit to draw
+	 * @param	damaged		True if the area is a damaged area, only used for the {@link FlightEvents.DrawElements} event
+	 */
+	private synchronized void drawCircuitElements(Rectangle2D visible, boolean damaged)
+	{
+		FlightEvents.DrawElements event = new FlightEvents.DrawElements();
+		event.begin();
+		int drawn = 0;
+		int boxes = 0;
+		int culled = 0;
+		
+		// selected lines are drawn last to be on top
+		Collection<Line> lines = circuit.getLinesByPosition(visible.getMinX(), visible.getMinY(), visible.getWidth(), visible.getHeight());
+		if (lines != null)
 		{
-			line.draw(gc);
+			for(Line line : lines)
+			{
+				if (line.getSelectionMode() != SelectionMode.SELECTED)
+					line.draw(gc, isStraightLine(line));
+			}
+			for(Line line : lines)
+			{
+				if (line.getSelectionMode() == SelectionMode.SELECTED)
+					line.draw(gc, isStraightLine(line));
+			}
 		}
-		for(Line line : circuit.getSelectedLines())
+		
+		List<Element> array = circuit.getElementsByPosition(visible.getMinX(), visible.getMinY(), visible.getWidth(), visible.getHeight());
+		if (array != null)
 		{
-			line.draw(gc);
+			for (Element elem : array)
+			{
+				if (elem.getClass() == Connector.class)
+				{
+					Component owner = ((Connector)elem).getOwner();
+					if (owner != null && getScreenSize(owner) < GraphicDesignContainer.lod_connector_size)
+					{
+						culled++;
+						continue;
+					}
+					elem.draw(gc, 1.0, elem.getSelectionMode());
+					drawn++;
+				}
+				else if (elem.getClass() == Component.class && getScreenSize(elem) < GraphicDesignContainer.lod_box_size)
+				{
+					SvgRenderer.renderBox(gc, elem.getX(), elem.getY(), elem.getSizeX(), elem.getSizeY(),
+							((Component)elem).getRotation(), elem.getSelectionMode());
+					boxes++;
+				}
+				else
+				{
+					elem.draw(gc, 1.0, elem.getSelectionMode());
+					drawn++;
+				}
+			}
 		}
 		
-		ArrayList<Element> array = circuit.getElements();
-		for (Element elem : array)
+		frameElementsDrawn += drawn + boxes;
+		frameElementsCulled += culled;
+		frameLinesDrawn += lines != null ? lines.size() : 0;
+		if (!damaged)
 		{
-			elem.draw(gc, 1.0, elem.getSelectionMode());
+			// elements outside of the visible area
+			frameElementsCulled += circuit.getElements().size() - (array != null ? array.size() : 0);
 		}
 		
-		// prevent overlapping from lines etc. and draw current selected connector last
-		if(currentSelectedConnector != null)
+		event.end();
+		if (event.shouldCommit())
 		{
-			currentSelectedConnector.draw(gc, 1.0, currentSelectedConnector.getSelectionMode());
+			event.zoom = canvasScaleFactor;
+			event.damagedArea = damaged;
+			event.areaWidth = visible.getWidth();
+			event.areaHeight = visible.getHeight();
+			event.elementsDrawn = drawn;
+			event.boxesDrawn = boxes;
+			event.elementsCulled = culled;
+			event.linesDrawn = lines != null ? lines.size() : 0;
+			event.commit();
 		}
-		
-		highlightConnectors();
 	}
 	
 	/**
-	 * Highlights the connectors in this circuit when the user wants to connect two.
+	 * Returns the size of an element on the screen, used for choosing its level of detail.
+	 * 
+	 * @param	elem		Element of the circuit
+	 * @return	double		Larger side of the element in pixels on the screen
+	 */
+	private double getScreenSize(Element elem)
+	{
+		return Math.max(elem.getSizeX(), elem.getSizeY()) * canvasScaleFactor;
+	}
+	
+	/**
+	 * Checks if a line is drawn straight without its corner point. The corner is at most
+	 * the smaller side of the rect spanned by the connectors away from the straight line.
+	 * 
+	 * @param	line		Line of the circuit
+	 * @return	boolean		true if the corner wouldn't be visible on the screen
+	 */
+	private boolean isStraightLine(Line line)
+	{
+		double corner = Math.min(Math.abs(line.getC1().getX() - line.getC2().getX()), Math.abs(line.getC1().getY() - line.getC2().getY()));
+		return corner * canvasScaleFactor < GraphicDesignContainer.lod_box_size;
+	}
+	
+	/**
+	 * Highlights the connectors in this circuit on the overlay layer when the user wants to connect two.
 	 * Needs a selected connector to prevent highlighting conenctor 
 	 * with the same owner or already connected connectors.
+	 * 
+	 * @param	array	Visible elements of the circuit, may be null
 	 */
-	private void highlightConnectors()
+	private void highlightConnectors(List<Element> array)
 	{
-		ArrayList<Element> array = circuit.getElements();
-		if (currentSelectedConnector != null)
+		if (currentSelectedConnector != null && array != null)
 		{
 			ArrayList<Connector> connectedConn = currentSelectedConnector.getConnections();
 			// draw again to prevent overlap effects when highlighting
@@ -611,7 +1322,7 @@ public class CircuitCanvas extends ResizableCanvas
 						&& ((Connector)elem).getOwner() != currentSelectedConnector.getOwner() // don't highlight connectors with same owner
 						&& !connectedConn.contains(elem)) // don't highlight already connected connectors
 				{
-					elem.draw(gc, 1.0, SelectionMode.HIGHLIGHTED);
+					elem.draw(overlayGc, 1.0, SelectionMode.HIGHLIGHTED);
 				}
 			}
 		}
@@ -714,6 +1425,8 @@ public class CircuitCanvas extends ResizableCanvas
 	 */
 	public void pasteSelected(Element[] elem, Point2D mousePos)
 	{
+		if (locked)
+			return;
 		deselectCurrentSelectedElements();
 		for(Element e : elem)
 		{
@@ -730,7 +1443,7 @@ public class CircuitCanvas extends ResizableCanvas
 				
 				((Component)clone).rotate(rot);
 				((Component)e).rotate(rot);
-				circuit.addElement(clone.move(currentMousePosition.getX() + offsetX, currentMousePosition.getY() + offsetY));
+				circuit.addElement(clone.move(getWorldX(currentMousePosition) + offsetX, getWorldY(currentMousePosition) + offsetY));
 				selectElement(clone);
 				refreshCanvas();
 			}
@@ -743,10 +1456,9 @@ public class CircuitCanvas extends ResizableCanvas
 	 */
 	public void deleteSelected()
 	{
-		for(Element e : currentSelectedElements)
-		{
-			circuit.removeElement(e);
-		}
+		if (locked)
+			return;
+		circuit.removeElements(currentSelectedElements);
 		isSelectingMultipleElements = false;
 		hasSelectedMultipleElements = false;
 		currentSelectedElements.clear();
@@ -761,7 +1473,7 @@ public class CircuitCanvas extends ResizableCanvas
 	{
 		deselectCurrentSelectedElements();
 		
-		ArrayList<Element> elements = circuit.getElements();
+		List<Element> elements = circuit.getElements();
 		for(Element e : elements)
 		{
 			if(e.getClass() == Component.class)
@@ -791,7 +1503,7 @@ public class CircuitCanvas extends ResizableCanvas
 	 */
 	public void rotateSelectedElements(double rotation)
 	{
-		if (!currentSelectedElements.isEmpty())
+		if (!locked && !currentSelectedElements.isEmpty())
 		{
 			for (Element e : currentSelectedElements)
 			{
@@ -801,19 +1513,19 @@ public class CircuitCanvas extends ResizableCanvas
 					comp.rotate((short) (rotation));
 				}
 			}
-			refreshCanvas();
 		}
 	}
 	
 	/**
 	 * Zooms into the canvas and reduces the scale of the canvas.
-   * Scale is limited to a max of 1.
+   * Scale is limited to a max of 1. Small scales are doubled instead of increased by the zoom factor.
 	 */
 	public void zoomIn()
 	{
 		if(canvasScaleFactor < 1)
 		{
-			zoom(GraphicDesignContainer.zoom_factor);
+			double step = Math.min(GraphicDesignContainer.zoom_factor, canvasScaleFactor);
+			zoom(Math.min(step, 1 - canvasScaleFactor));
 		}
 		else
 		{
@@ -823,46 +1535,38 @@ public class CircuitCanvas extends ResizableCanvas
 
 	/**
 	 * Zooms out of the canvas and increases the scale of the canvas. 
-   * Scale is limited to a min of 0,5.
+   * Scale is limited to a min of GraphicDesignContainer.min_zoom. Small scales are halved
+   * instead of decreased by the zoom factor.
 	 */
 	public void zoomOut()
 	{
-		if(canvasScaleFactor > 0.5)
+		if(canvasScaleFactor > GraphicDesignContainer.min_zoom)
 		{
-			zoom(-GraphicDesignContainer.zoom_factor);
-			
+			double step = Math.min(GraphicDesignContainer.zoom_factor, canvasScaleFactor * 0.5);
+			zoom(-Math.min(step, canvasScaleFactor - GraphicDesignContainer.min_zoom));
 		}
 		else
 		{
-			canvasScaleFactor = 0.55;
+			canvasScaleFactor = GraphicDesignContainer.min_zoom;
 		}
 	}
 	
   	/**
-	 * Used for zooming in and out of the canvas. 
+	 * Used for zooming in and out of the canvas. The center of the view stays in place.
    *
    * @param   step  Scale factor that gets added (can be negative)
 	 */
 	private void zoom(double step)
 	{
-		canvasScaleFactor += step;
-		
-		double posX = sp.getVvalue();
-		double posY = sp.getHvalue();
-		
-		setScaleX(canvasScaleFactor);
-		setScaleY(canvasScaleFactor);
-		
-		sp.setHvalue(canvasScaleFactor * 0.5);
-		sp.setVvalue(canvasScaleFactor * 0.5);
-		
-		sp.setHmin((1-canvasScaleFactor)/2);
-		sp.setVmin((1-canvasScaleFactor)/2);
+		double centerX = viewX + getWidth() * 0.5 / canvasScaleFactor;
+		double centerY = viewY + getHeight() * 0.5 / canvasScaleFactor;
 		
-		sp.setVvalue(posX);
-		sp.setHvalue(posY);
+		canvasScaleFactor += step;
 		
-		refreshCanvas();
+		setView(centerX - getWidth() * 0.5 / canvasScaleFactor, centerY - getHeight() * 0.5 / canvasScaleFactor);
+		updateTransform();
+		updateScrollBars();
+		requestRefresh();
 	}
   
 	/**
@@ -872,7 +1576,7 @@ public class CircuitCanvas extends ResizableCanvas
 	 */
 	public Point2D getMousePosition()
 	{
-		return new Point2D(currentMousePosition.getX(), currentMousePosition.getY());
+		return new Point2D(getWorldX(currentMousePosition), getWorldY(currentMousePosition));
 	}
 	
 	/**
@@ -904,8 +1608,6 @@ public class CircuitCanvas extends ResizableCanvas
 			{
 				BlitzEdit.elementsToCopy = copySelected();
 				BlitzEdit.copyMousePosition = getMousePosition();
-				
-				System.out.println("copy");
 			}
 		});
 		
@@ -918,8 +1620,6 @@ public class CircuitCanvas extends ResizableCanvas
 				{
 					pasteSelected(BlitzEdit.elementsToCopy, BlitzEdit.copyMousePosition);
 				}
-				
-				System.out.println("paste");
 			}
 		});
 		
@@ -929,7 +1629,6 @@ public class CircuitCanvas extends ResizableCanvas
 			public void handle(ActionEvent click)
 			{
 				deleteSelected();
-				System.out.println("delete");
 			}
 		});
 		
@@ -949,34 +1648,23 @@ public class CircuitCanvas extends ResizableCanvas
 	}
 	
 	/**
-	 * Draws an rectangle with clickX and clickY as origin.
+	 * Draws an rectangle with clickX and clickY as origin on the overlay layer.
 	 * 
 	 * @param 	currX		X position in canvas, width of rect
 	 * @param	currY		Y position in canvas, height of rect
 	 */
 	private void drawSelectRect(double currX, double currY)
 	{
-		refreshCanvas();
-		gc.save();
-		gc.setStroke(GraphicDesignContainer.selection_rect_color);
-
-		if (currX > clickX && currY > clickY)
-		{
-			gc.strokeRect(clickX, clickY, currX - clickX, currY - clickY);
-		}
-		else if (currX < clickX && currY > clickY)
-		{
-			gc.strokeRect(currX, clickY, clickX - currX, currY - clickY);
-		}
-		else if (currX > clickX && currY < clickY)
+		if (currX != clickX && currY != clickY)
 		{
-			gc.strokeRect(clickX, currY, currX - clickX, clickY - currY);
+			selectRect = new Rectangle2D(Math.min(currX, clickX), Math.min(currY, clickY),
+					Math.abs(currX - clickX), Math.abs(currY - clickY));
 		}
-		else if (currX < clickX && currY < clickY)
+		else
 		{
-			gc.strokeRect(currX, currY, clickX - currX, clickY - currY);
+			selectRect = null;
 		}
-		gc.restore();
+		requestOverlayRefresh();
 	}
 	
 	/**
@@ -1138,30 +1826,44 @@ public class CircuitCanvas extends ResizableCanvas
 	{
 		super.setWidth(width);
 		super.setHeight(height);
+		gridValid = false;
+		updateScrollBars();
 		refreshCanvas();
 	}
 
 	@Override
 	public double minWidth(double height)
 	{
-		return 2000;
+		return 0;
 	}
 
 	@Override
 	public double maxWidth(double height)
 	{
-		return 4000;
+		return Double.MAX_VALUE;
+	}
+
+	@Override
+	public double prefWidth(double height)
+	{
+		return 800;
 	}
 
 	@Override
 	public double minHeight(double width)
 	{
-		return 2000;
+		return 0;
 	}
 
 	@Override
 	public double maxHeight(double width)
 	{
-		return 4000;
+		return Double.MAX_VALUE;
+	}
+
+	@Override
+	public double prefHeight(double width)
+	{
+		return 600;
 	}
 }
@@ -0,0 +1,96 @@
+package blitzEdit.application;
+
+import java.io.File;
+import java.util.concurrent.CancellationException;
+
+import blitzEdit.core.Circuit;
+import blitzEdit.storage.CircuitFormat;
+import blitzEdit.storage.LoadListener;
+import javafx.concurrent.Task;
+
+/**
+ * Creates tasks loading and saving circuits off the JavaFX application thread.
+ * The tasks have to be started by the caller, e.g. on a new thread, and can be cancelled.
+ */
+public class CircuitFileService
+{
+	/**
+	 * Creates a task loading a circuit. The circuit is built completely on the loading thread,
+	 * the task returns it to the handlers of the task on the JavaFX application thread.
+	 * The progress of the task is the part of the file read, its message contains the number of records.
+	 *
+	 * @param 	file		File of the circuit, the format is detected by its content
+	 * @param 	prompts		Decides about modified files and gets notified about errors.
+	 * 						Called on the loading thread, its progress method isn't used.
+	 * @return	Task		Task returning the loaded circuit, null if it couldn't be loaded
+	 */
+	public static Task<Circuit> load(File file, LoadListener prompts)
+	{
+		return new Task<Circuit>()
+		{
+			@Override
+			protected Circuit call() throws Exception
+			{
+				updateMessage("Loading " + file.getName());
+				String path = file.getPath();
+				Circuit circuit = new Circuit();
+				boolean loaded = CircuitFormat.detect(path).createParser().loadCircuit(circuit, path, new LoadListener()
+				{
+					@Override
+					public boolean acceptModifications(String filePath)
+					{
+						return prompts.acceptModifications(filePath);
+					}
+
+					@Override
+					public void loadingFailed(String filePath, String message)
+					{
+						prompts.loadingFailed(filePath, message);
+					}
+
+					@Override
+					public void progress(long records, long bytesRead, long bytesTotal)
+					{
+						// aborts the parser, the task is already cancelled
+						if (isCancelled())
+							throw new CancellationException();
+						updateProgress(bytesRead, bytesTotal);
+						updateMessage("Loading " + file.getName() + ": " + records + " records, "
+								+ bytesRead / 1024 + " of " + bytesTotal / 1024 + " kB");
+					}
+				});
+				return loaded ? circuit : null;
+			}
+		};
+	}
+
+	/**
+	 * Creates a task saving a circuit. The circuit is read on the saving thread,
+	 * so it must not be changed until the task is done. Has to be called on the JavaFX application thread.
+	 *
+	 * @param 	circuit		Circuit to save
+	 * @param 	file		Destination, the format is chosen by its extension
+	 * @param 	useHashes	If true uses hashes to ensure consistency
+	 * @return	Task		Task saving the circuit
+	 */
+	public static Task<Void> save(Circuit circuit, File file, boolean useHashes)
+	{
+		// the saving thread only reads the circuit
+		circuit.compactElements();
+		return new Task<Void>()
+		{
+			@Override
+			protected Void call() throws Exception
+			{
+				updateMessage("Saving " + file.getName());
+				String path = file.getPath();
+				CircuitFormat.fromExtension(path).createParser().writeCircuit(circuit, path, useHashes);
+				return null;
+			}
+		};
+	}
+
+	private CircuitFileService()
+	{
+	}
+}
@@ -2,15 +2,20 @@ package blitzEdit.application;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 
 import blitzEdit.core.BlueprintContainer;
 import blitzEdit.core.ComponentBlueprint;
 import blitzEdit.core.ComponentLibrary;
 import blitzEdit.core.Element;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.event.EventHandler;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
 import javafx.scene.input.MouseEvent;
 import tools.FileTools;
+import tools.FlightEvents;
 import tools.SelectionMode;
 
 /**
@@ -21,10 +26,11 @@ import tools.SelectionMode;
 public class LibraryCanvas extends ResizableCanvas
 {
 	public File directory;
-	ArrayList<File> entries = new ArrayList<File>();
+	LinkedHashSet<File> entries = new LinkedHashSet<File>();
 	ComponentLibrary componentLibrary;
 	GraphicsContext gc;
 	Element currentDraggedElement = null;
+	LibraryImportTask importTask = null;
 	
 	private double scale = 0.5;
 	
@@ -48,6 +54,10 @@ public class LibraryCanvas extends ResizableCanvas
 	 */
 	public void delete()
 	{
+		if(importTask != null)
+		{
+			importTask.cancel();
+		}
 		BlueprintContainer.get().removeBlueprints(componentLibrary.getLibraryBlueprints());
 	}
 	
@@ -81,29 +91,81 @@ public class LibraryCanvas extends ResizableCanvas
 	}
 	
 	/**
-	 * Gets all files in the directory and uses addLibaryEntry for each file.
+	 * Gets all xml files in the directory, which aren't already contained in the library,
+	 * and creates a {@link LibraryImportTask} reading them in the background.
+	 * When the task succeeded, the files are added to entries, the blueprints to the componentLibrary
+	 * and the library is drawn once. The task has to be started by the caller.
 	 * 
-	 * @param	folderpath	File containing the folder directory
-	 * @return	boolean		True if succesfully added the files from the folder
+	 * @param	folderpath			File containing the folder directory
+	 * @return	LibraryImportTask	Task reading the new files, null if the folder contains no new xml files
 	 */
-	public boolean addLibraryEntries(File folderpath)
+	public LibraryImportTask addLibraryEntries(File folderpath)
 	{
-		ArrayList<File> entriesCheck = (ArrayList<File>) entries.clone();
-		
-		ArrayList<File> files = FileTools.getFilesInDirectory(folderpath, true); //TODO: boolean for subdirectories
-		for (File file : files)
+		// a set, because large libraries contain thousands of files
+		LinkedHashSet<File> newFiles = new LinkedHashSet<File>();
+		for (File file : FileTools.getFilesInDirectory(folderpath, true)) //TODO: boolean for subdirectories
 		{
-			if(addLibraryEntry(file))
+			if(!entries.contains(file) && file.toString().contains(".xml"))
 			{
+				newFiles.add(file);
 			}
 		}
+		ArrayList<File> files = new ArrayList<File>(newFiles);
+		if(files.isEmpty())
+		{
+			return null;
+		}
 		
-		if(!entries.equals(entriesCheck))
+		// ends when the entries are added or the task is cancelled or failed
+		FlightEvents.LibraryImport importEvent = new FlightEvents.LibraryImport();
+		importEvent.begin();
+		LibraryImportTask task = new LibraryImportTask(files);
+		task.setOnSucceeded(event -> {
+			ArrayList<ComponentBlueprint> blueprints = task.getValue();
+			int imported = 0;
+			for (int i = 0; i < files.size(); i++)
+			{
+				entries.add(files.get(i));
+				if(blueprints.get(i) != null)
+				{
+					componentLibrary.addBlueprint(blueprints.get(i));
+					imported++;
+				}
+			}
+			componentLibrary.initiate(gc);
+			
+			if (!task.getFailures().isEmpty())
+			{
+				Alert alert = new Alert(AlertType.ERROR, String.join("\n", task.getFailures()));
+				alert.setTitle("Loading Error");
+				alert.setHeaderText("Some components of " + folderpath + " couldn't be imported.");
+				alert.show();
+			}
+			
+			commitImportEvent(importEvent, folderpath, files, imported);
+		});
+		EventHandler<WorkerStateEvent> aborted = event -> commitImportEvent(importEvent, folderpath, files, 0);
+		task.addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, aborted);
+		task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED, aborted);
+		directory = folderpath;
+		importTask = task;
+		return task;
+	}
+	
+	private static void commitImportEvent(FlightEvents.LibraryImport importEvent, File folderpath, ArrayList<File> files, int imported)
+	{
+		importEvent.end();
+		if (importEvent.shouldCommit())
 		{
-			directory = folderpath;
-			return true;
+			importEvent.directory = folderpath.getPath();
+			importEvent.files = files.size();
+			importEvent.blueprints = imported;
+			for (File file : files)
+			{
+				importEvent.bytes += file.length();
+			}
+			importEvent.commit();
 		}
-		return false;
 	}
 	
 	/**
@@ -144,8 +206,6 @@ public class LibraryCanvas extends ResizableCanvas
 				if (click.isPrimaryButtonDown() && currentDraggedElement != null)
 				{
 					startFullDrag();
-					System.err.println("blub");
-					
 				}
 			}
 		});
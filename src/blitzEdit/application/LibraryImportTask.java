@@ -0,0 +1,119 @@
+package blitzEdit.application;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import blitzEdit.core.ComponentBlueprint;
+import blitzEdit.storage.XMLParser;
+import javafx.concurrent.Task;
+
+/**
+ * Background task reading the blueprints of a library. The xml files and their svg images
+ * are parsed in parallel on a pool with one thread per core. The result contains one blueprint
+ * per file, in the order of the files, null for files which couldn't be read.
+ *
+ * The task doesn't change the {@link blitzEdit.core.BlueprintContainer}, the blueprints
+ * are added to it by the {@link LibraryCanvas} after the task succeeded. The task doesn't
+ * show any messages either, files which couldn't be read are collected in {@link #getFailures()}.
+ */
+public class LibraryImportTask extends Task<ArrayList<ComponentBlueprint>>
+{
+	/**
+	 * Constructor
+	 *
+	 * @param files		xml files of the blueprints to read
+	 */
+	public LibraryImportTask(List<File> files)
+	{
+		_files = new ArrayList<File>(files);
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return ArrayList&lt;File&gt;	Files read by this task
+	 */
+	public ArrayList<File> getFiles()
+	{
+		return _files;
+	}
+
+	/**
+	 * Getter, only complete after the task succeeded
+	 *
+	 * @return ArrayList&lt;String&gt;	Messages about the files which couldn't be read
+	 */
+	public ArrayList<String> getFailures()
+	{
+		return _failures;
+	}
+
+	@Override
+	protected ArrayList<ComponentBlueprint> call() throws Exception
+	{
+		int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), _files.size()));
+		ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "library-import");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try
+		{
+			ArrayList<Future<ComponentBlueprint>> futures = new ArrayList<Future<ComponentBlueprint>>(_files.size());
+			for (File file : _files)
+			{
+				futures.add(pool.submit(new Callable<ComponentBlueprint>()
+				{
+					@Override
+					public ComponentBlueprint call() throws IOException
+					{
+						if (isCancelled())
+							return null;
+						ComponentBlueprint blueprint = XMLParser.parseBlueprint(file.toString());
+						// compiles the svg image on this thread instead of the first draw
+						if (blueprint != null && blueprint.getSvg() != null)
+							blueprint.getSvg().getDisplayList();
+						return blueprint;
+					}
+				}));
+			}
+
+			ArrayList<ComponentBlueprint> blueprints = new ArrayList<ComponentBlueprint>(_files.size());
+			for (int i = 0; i < futures.size(); i++)
+			{
+				if (isCancelled())
+					return null;
+				ComponentBlueprint blueprint = null;
+				try
+				{
+					blueprint = futures.get(i).get();
+					if (blueprint == null)
+						_failures.add(_files.get(i) + ": no valid blueprint");
+				}
+				catch (ExecutionException e)
+				{
+					_failures.add(_files.get(i) + ": " + e.getCause());
+				}
+				blueprints.add(blueprint);
+				updateProgress(i + 1, futures.size());
+				updateMessage("Imported " + (i + 1) + " of " + futures.size() + " components");
+			}
+			return blueprints;
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	private final ArrayList<File> _files;
+	private final ArrayList<String> _failures = new ArrayList<String>();
+}
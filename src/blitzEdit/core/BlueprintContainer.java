@@ -8,9 +8,12 @@ import tools.SvgRenderer;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Organizes {@link ComponentBlueprint blueprints} in a container
+ * Organizes {@link ComponentBlueprint blueprints} in a container.
+ * The blueprints are stored by their typename, so every type is contained only once.
+ * All methods may be called from multiple threads, e.g. by loaders running in parallel.
  * 
  * @author David Schick
  * @author Christian G�rtner
@@ -24,12 +27,7 @@ public class BlueprintContainer
 	 */
 	public void setBlueprint(ComponentBlueprint blueprint)
 	{
-		for (ComponentBlueprint cb : _blueprints)
-		{
-			if(cb.getType().matches(blueprint.getType()))
-				_blueprints.remove(cb);
-		}
-		_blueprints.add(blueprint);
+		_blueprints.put(blueprint.getType(), blueprint);
 	}
 	
 	/**
@@ -39,12 +37,8 @@ public class BlueprintContainer
 	 */
 	public boolean checkBlueprint(ComponentBlueprint blueprint)
 	{
-		for (ComponentBlueprint cb : _blueprints)
-		{
-			if(cb.equals(blueprint))
-				return true;
-		}
-		return false;
+		ComponentBlueprint cb = _blueprints.get(blueprint.getType());
+		return cb != null && cb.equals(blueprint);
 	}
 	
 	/**
@@ -74,28 +68,18 @@ public class BlueprintContainer
 	 */
 	public boolean hasBlueprint(String type)
 	{
-		for (ComponentBlueprint cb : _blueprints)
-		{
-			if(cb.getType().matches(type))
-				return true;
-		}
-		return false;
+		return _blueprints.containsKey(type);
 	}
 	
 	/**
-	 * Returns blueprint which typename matches type
+	 * Returns blueprint which typename equals type
 	 * @param 	type		Name of blueprint to check
 	 * @return 	matching	{@link ComponentBlueprint} or null, if the blueprint is not 
 	 * contained in this BlueprintContainer
 	 */
 	public ComponentBlueprint getBlueprint(String type)
 	{
-		for (ComponentBlueprint cb : _blueprints)
-		{
-			if (cb.getType().matches(type))
-				return cb;
-		}
-		return null;
+		return _blueprints.get(type);
 	}
 	
 	/**
@@ -103,12 +87,13 @@ public class BlueprintContainer
 	 */
 	public ArrayList<ComponentBlueprint> getBlueprints()
 	{
-		return new ArrayList<ComponentBlueprint>(_blueprints);
+		return new ArrayList<ComponentBlueprint>(_blueprints.values());
 	}
 	
 	/**
-	 * Tries to delete all ComponentBlueprints in the given array from its blueprints array.
-	 * If blueprints doesn't contain a COmponentBlueprint nothing happens.
+	 * Tries to delete all ComponentBlueprints in the given array from this container.
+	 * If the container doesn't contain a ComponentBlueprint or holds another one
+	 * with its typename, nothing happens.
 	 * @param 	blueprint 			Array of ComponentBlueprints to delete
 	 */
 	public void removeBlueprints(ComponentBlueprint[] blueprint)
@@ -117,38 +102,48 @@ public class BlueprintContainer
 		{
 			for(ComponentBlueprint bp : blueprint)
 			{
-				if (bp != null && !_blueprints.contains(blueprint)) 
+				if (bp != null) 
 				{
-					_blueprints.remove(bp);
+					_blueprints.remove(bp.getType(), bp);
 				}
 			}
 		}
 	}
 	
 	/**
-	 * adds {@link ComponentBlueprint} to this Container
+	 * adds {@link ComponentBlueprint} to this Container.
+	 * An already contained blueprint with the same typename is kept.
 	 * @param 	filepath 			path of xml-representation on the filesystem
-	 * @return	ComponentBlueprint	Added ComponentBlueprint
+	 * @return	ComponentBlueprint	Added ComponentBlueprint, null if it couldn't be read
+	 * 								or its typename is already contained
 	 */
 	public ComponentBlueprint addBlueprint(File filepath)
 	{
 		ComponentBlueprint blueprint = XMLParser.readBlueprint(filepath.toString());
-		
-		if(blueprint != null && !_blueprints.contains(blueprint))
+		return addBlueprint(blueprint);
+	}
+	
+	/**
+	 * adds {@link ComponentBlueprint} to this Container.
+	 * An already contained blueprint with the same typename is kept.
+	 * @param 	blueprint 			ComponentBlueprint to be added
+	 * @return	ComponentBlueprint	Added ComponentBlueprint, null if it is null
+	 * 								or its typename is already contained
+	 */
+	public ComponentBlueprint addBlueprint(ComponentBlueprint blueprint)
+	{
+		if(blueprint != null && _blueprints.putIfAbsent(blueprint.getType(), blueprint) == null)
 		{
-			_blueprints.add(blueprint);
 			return blueprint;
 		}
 		return null;
-		
 	}
 	
+	/**
+	 * @return the BlueprintContainer shared by the whole application
+	 */
 	public static BlueprintContainer get()
 	{
-		if(_instance == null)
-		{
-			_instance = new BlueprintContainer();
-		}
 		return _instance;
 	}
 	
@@ -157,9 +152,10 @@ public class BlueprintContainer
 	 */
 	private BlueprintContainer()
 	{
-		_blueprints = new ArrayList<ComponentBlueprint>();
+		_blueprints = new ConcurrentHashMap<String, ComponentBlueprint>();
 	}
 	
-	private static BlueprintContainer _instance;
-	private ArrayList<ComponentBlueprint> _blueprints;
+	private static final BlueprintContainer _instance = new BlueprintContainer();
+	// blueprints by typename
+	private final ConcurrentHashMap<String, ComponentBlueprint> _blueprints;
 }
@@ -3,9 +3,19 @@ package blitzEdit.core;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import javax.swing.event.AncestorEvent;
 
+import tools.FlightEvents;
+import tools.Metrics;
 import tools.SelectionMode;
 
 /**
@@ -25,14 +35,19 @@ public class Circuit
 	 */
 	public ArrayList<Element> getElementsByPosition(int x, int y)
 	{
+		long start = Metrics.now();
+		FlightEvents.HitTest event = beginHitTest();
 		ArrayList<Element> resultList = new ArrayList<Element>();
-		for (Element element : _elements)
+		ArrayList<Element> candidates = _index.query(x, y);
+		for (Element element : candidates)
 		{
 			if (element.contains(x, y)) //checkt, ob element angeklickt wurde
 			{
 				resultList.add(element);
 			}
 		}
+		commitHitTest(event, x, y, 0, 0, candidates.size(), resultList.size());
+		HIT_TEST_TIME.recordSince(start);
 		
 		if (resultList.isEmpty()) //kein Element an position
 			return null;
@@ -63,35 +78,37 @@ public class Circuit
 	
 	
 	/**
-	 * Returns overall width of Circuit
+	 * Returns overall width of Circuit, the right border of {@link #getBounds()}
 	 * @return overall width of Circuit
 	 */
 	public int getWidth()
 	{
-		int width = 0, elemWidth = 0;
-		for (Element elem : _elements)
-		{
-			elemWidth = elem.getX() + elem.getSizeX()/2;
-			if (elemWidth > width)
-				width = elemWidth;
-		}
-		return width;
+		validateExtent();
+		return Math.max(0, _maxX);
 	}
 	
 	/**
-	 * Returns overall height of Circuit
+	 * Returns overall height of Circuit, the bottom border of {@link #getBounds()}
 	 * @return overall height of Circuit
 	 */
 	public int getHeight()
 	{
-		int height = 0, elemHeight = 0;
-		for (Element elem : _elements)
-		{
-			elemHeight = elem.getY() + elem.getSizeY()/2;
-			if (elemHeight > height)
-				height = elemHeight;
-		}
-		return height;
+		validateExtent();
+		return Math.max(0, _maxY);
+	}
+	
+	/**
+	 * Returns the bounding box of the bounds of all {@link Element Elements} in Circuit.
+	 * The box is kept up to date while elements are added and moved, it only
+	 * has to be recomputed after an element at its border was moved inwards or removed.
+	 * @return bounding box of Circuit, null if Circuit is empty
+	 */
+	public Rectangle getBounds()
+	{
+		validateExtent();
+		if (_minX > _maxX)
+			return null;
+		return new Rectangle(_minX, _minY, _maxX - _minX, _maxY - _minY);
 	}
 	
 	/**
@@ -105,19 +122,54 @@ public class Circuit
 	 */
 	public ArrayList<Element> getElementsByPosition(int x, int y, int width, int height)
 	{
+		long start = Metrics.now();
+		FlightEvents.HitTest event = beginHitTest();
 		ArrayList<Element> resultList = new ArrayList<Element>();
 		Rectangle rect = new Rectangle(x, y, width, height);
-		for(Element elem : _elements)
+		ArrayList<Element> candidates = _index.query(x, y, width, height);
+		for(Element elem : candidates)
 		{
 			if (elem.intersects(rect)) 
 				resultList.add(elem);
 		}
+		commitHitTest(event, x, y, width, height, candidates.size(), resultList.size());
+		HIT_TEST_TIME.recordSince(start);
 		
 		if (resultList.isEmpty())
 			return null;
 		return resultList;
 	}
 	
+	/**
+	 * Hit tests run on every mouse move, so the event is only created while it is recorded
+	 * @return started event, null if hit tests aren't recorded
+	 */
+	private static FlightEvents.HitTest beginHitTest()
+	{
+		if (!FlightEvents.isEnabled(FlightEvents.HitTest.class))
+			return null;
+		FlightEvents.HitTest event = new FlightEvents.HitTest();
+		event.begin();
+		return event;
+	}
+	
+	private static void commitHitTest(FlightEvents.HitTest event, int x, int y, int width, int height, int candidates, int hits)
+	{
+		if (event == null)
+			return;
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.x = x;
+			event.y = y;
+			event.width = width;
+			event.height = height;
+			event.candidates = candidates;
+			event.hits = hits;
+			event.commit();
+		}
+	}
+	
 	/**
 	 * Uses {@link #getElementsByPosition(int x, int y, int width, int height)}.
 	 *  
@@ -133,20 +185,106 @@ public class Circuit
 	}
 	
 	/**
-	 * Returns all {@link Element Elements} with the designated typename
+	 * Returns all {@link Line Lines} whose bounding box intersects the designated Rectangle
+	 *  
+	 * @param x							Contains x position
+	 * @param y							Contains y position
+	 * @param width						Contains width of rect
+	 * @param height					Containts height of rect
+	 * @return ArrayList&lt;Line&gt;	List of all Lines in rectangle
+	 */
+	public ArrayList<Line> getLinesByPosition(int x, int y, int width, int height)
+	{
+		ArrayList<Line> resultList = _lineIndex.query(x, y, width, height);
+		
+		if (resultList.isEmpty())
+			return null;
+		return resultList;
+	}
+	
+	/**
+	 * Uses {@link #getLinesByPosition(int x, int y, int width, int height)}.
+	 *  
+	 * @param x							Contains x position
+	 * @param y							Contains y position
+	 * @param width						Contains width of rect
+	 * @param height					Containts height of rect
+	 * @return ArrayList&lt;Line&gt;	List of all Lines in rectangle
+	 */
+	public ArrayList<Line> getLinesByPosition(double x, double y, double width, double height)
+	{
+		return getLinesByPosition((int)x, (int)y, (int)width, (int)height);
+	}
+	
+	/**
+	 * Returns all {@link Element Elements} whose typename matches the designated regular expression.
+	 * Uses {@link #getElementsByType(String type, TypeMatch match)} with {@link TypeMatch#REGEX}.
 	 * 
-	 * @param type typename
+	 * @param type regular expression for the typename
 	 * @return List of all Elements with typename
 	 */
 	public ArrayList<Element> getElementsByPosition(String type)
+	{
+		return getElementsByType(type, TypeMatch.REGEX);
+	}
+	
+	/**
+	 * Returns all {@link Component Components} with the designated typename
+	 * 
+	 * @param type typename
+	 * @return List of all Components with typename
+	 */
+	public ArrayList<Element> getElementsByType(String type)
+	{
+		return getElementsByType(type, TypeMatch.EXACT);
+	}
+	
+	/**
+	 * Returns all {@link Component Components} whose typename matches the designated one,
+	 * in the order they were added to Circuit. The components are indexed by their typename,
+	 * so a pattern is only compared with every typename once.
+	 * 
+	 * @param type typename or pattern
+	 * @param match how type is compared with the typenames
+	 * @return List of all Components with matching typename
+	 */
+	public ArrayList<Element> getElementsByType(String type, TypeMatch match)
 	{
 		ArrayList<Element> resultList = new ArrayList<Element>();
-		for(Element elem : _elements)
+		if (match == TypeMatch.EXACT)
 		{
-			if (!(elem instanceof Component)) 
-				continue;
-			if (((Component)elem).getType().matches(type))
-				resultList.add(elem);
+			LinkedHashSet<Component> components = _componentsByType.get(type);
+			if (components != null)
+				resultList.addAll(components);
+		}
+		else
+		{
+			Pattern pattern = Pattern.compile(match == TypeMatch.GLOB ? globToRegex(type) : type);
+			ArrayList<LinkedHashSet<Component>> matches = new ArrayList<LinkedHashSet<Component>>();
+			for (Map.Entry<String, LinkedHashSet<Component>> entry : _componentsByType.entrySet())
+			{
+				if (pattern.matcher(entry.getKey()).matches())
+					matches.add(entry.getValue());
+			}
+			
+			if (matches.size() == 1)
+			{
+				resultList.addAll(matches.get(0));
+			}
+			else if (matches.size() > 1)
+			{
+				// the components of several types are taken from the circuit to keep their order
+				HashSet<String> types = new HashSet<String>();
+				for (LinkedHashSet<Component> components : matches)
+				{
+					types.add(components.iterator().next().getType());
+				}
+				for (Element elem : _elements)
+				{
+					if (elem instanceof Component && types.contains(((Component)elem).getType()))
+						resultList.add(elem);
+				}
+			}
 		}
 		
 		if (resultList.isEmpty())
@@ -154,13 +292,60 @@ public class Circuit
 		return resultList;
 	}
 	
+	/**
+	 * Returns all typenames of the {@link Component Components} in Circuit
+	 * @return unmodifiable set of typenames
+	 */
+	public Collection<String> getTypes()
+	{
+		return Collections.unmodifiableSet(_componentsByType.keySet());
+	}
+	
+	/**
+	 * Translates a glob pattern into a regular expression
+	 */
+	private static String globToRegex(String glob)
+	{
+		StringBuilder regex = new StringBuilder();
+		StringBuilder literal = new StringBuilder();
+		for (char c : glob.toCharArray())
+		{
+			if (c == '*' || c == '?')
+			{
+				if (literal.length() > 0)
+				{
+					regex.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				regex.append(c == '*' ? ".*" : ".");
+			}
+			else
+			{
+				literal.append(c);
+			}
+		}
+		if (literal.length() > 0)
+			regex.append(Pattern.quote(literal.toString()));
+		return regex.toString();
+	}
+	
+	/**
+	 * Closes the gaps removed {@link Element Elements} left in the list returned by {@link #getElements()}.
+	 * Reading the list does this too, so call it before the Circuit is read by another thread,
+	 * which must not change the list.
+	 */
+	public void compactElements()
+	{
+		_elements.compact();
+	}
+	
 	/**
 	 * Returns all {@link Element Elements} of Circuit
-	 * @return List of all Elements
+	 * @return unmodifiable List of all Elements in the order they were added
 	 */
-	public ArrayList<Element> getElements()
+	public List<Element> getElements()
 	{
-		return _elements;
+		return _elements.asList();
 	}
 	
 	/**
@@ -175,10 +360,12 @@ public class Circuit
 		{
 			for (Connector con : ((Component)elem).getConnectors())
 			{
-				_elements.add(con);
+				if (_elements.add(con))
+					register(con);
 			}
 		}
 		_elements.add(elem);
+		register(elem);
 	}
 	
 	/**
@@ -191,7 +378,7 @@ public class Circuit
 		{
 			for (Element elem : elements)
 			{
-				if (_elements.contains(elem))
+				if (elem == null || _elements.contains(elem))
 					continue;
 				/*
 				if (elem instanceof Component)
@@ -204,6 +391,7 @@ public class Circuit
 				*/
 				
 				_elements.add(elem);
+				register(elem);
 			}
 		}
 	}
@@ -218,14 +406,6 @@ public class Circuit
 		{
 			if (elem instanceof Connector)
 				removeElement(((Connector)elem).getOwner());
-			ArrayList<Element> newElements = new ArrayList<Element>();
-			for (Element element : _elements)
-			{
-				if (element != elem)
-				{
-					newElements.add(element);
-				}
-			}
 			// delete connections too
 			if (elem.getClass() == Component.class) {
 				Component comp = (Component) elem;
@@ -235,12 +415,30 @@ public class Circuit
 					{
 						c2.disconnect(c1);
 					}
-					newElements.remove(c1);
+					_elements.remove(c1);
+					unregister(c1);
 				}
 
 			}
 			
-			_elements = newElements;
+			_elements.remove(elem);
+			unregister(elem);
+		}
+	}
+	
+	/**
+	 * Removes multiple {@link Element Elements} from Circuit.
+	 * The element list is compacted only once for all of them.
+	 * @param elements Elements to be removed
+	 */
+	public void removeElements(Collection<? extends Element> elements)
+	{
+		if (elements != null)
+		{
+			for (Element elem : elements)
+			{
+				removeElement(elem);
+			}
 		}
 	}
 	
@@ -249,78 +447,392 @@ public class Circuit
 	 */
 	public void clearElements()
 	{
+		for (Element elem : _elements)
+		{
+			if (elem._circuit == this)
+				elem._circuit = null;
+			fireAreaChanged(elem.getBounds());
+		}
 		_elements.clear();
+		_index.clear();
+		_componentsByType.clear();
+		resetExtent();
+		_lines.clear();
+		_lineIndex.clear();
+		_linesByConnector.clear();
+		_netlist.clear();
 	}
 	
 	/**
-	 * Returns the filesystem path of Circuit
-	 * @return path of Circuit
+	 * Called by {@link Element} after its location, size or rotation changed.
+	 * Updates the spatial index of the element and of the lines at a moved {@link Connector}.
+	 * 
+	 * @param elem changed {@link Element}
 	 */
-	public String getPath()
+	void elementChanged(Element elem)
 	{
-		return new String(_path);
+		Rectangle bounds = elem.getBounds();
+		Rectangle oldBounds = _index.getBounds(elem);
+		extentRemoved(oldBounds);
+		extentAdded(bounds);
+		if (!_listeners.isEmpty())
+		{
+			if (elem instanceof Connector && oldBounds != null && ((Connector)elem).getOwner() != null)
+			{
+				// a connector is drawn from its anker point to its position
+				Rectangle area = oldBounds.union(bounds);
+				area.add(((Connector)elem).getAnkerPoint());
+				fireAreaChanged(area);
+			}
+			else
+			{
+				fireAreaChanged(oldBounds);
+				fireAreaChanged(bounds);
+			}
+		}
+		_index.update(elem, bounds);
+		if (elem instanceof Connector)
+		{
+			ArrayList<Line> lines = _linesByConnector.get(elem);
+			if (lines != null)
+			{
+				for (Line line : lines)
+				{
+					bounds = line.getBounds();
+					if (!_listeners.isEmpty())
+					{
+						fireAreaChanged(_lineIndex.getBounds(line));
+						fireAreaChanged(bounds);
+					}
+					_lineIndex.update(line, bounds);
+				}
+			}
+		}
 	}
 	
 	/**
-	 * Returns the name of Circuit
-	 * @return name of circuit
+	 * Called by {@link Element} after its selection mode changed.
+	 * Reports the area of the element and of the lines drawn in the selection color with it.
+	 * 
+	 * @param elem changed {@link Element}
 	 */
-	public String getName()
+	void selectionChanged(Element elem)
 	{
-		return new String(_name);
+		if (_listeners.isEmpty())
+			return;
+		fireAreaChanged(elem.getBounds());
+		if (elem instanceof Component)
+		{
+			for (Connector conn : ((Component)elem).getConnectors())
+			{
+				fireLinesChanged(conn);
+			}
+		}
+		else if (elem instanceof Connector)
+		{
+			fireLinesChanged((Connector)elem);
+		}
+	}
+	
+	/**
+	 * Adds a listener, which gets notified about changed areas of this Circuit
+	 * @param listener {@link CircuitListener} to be added
+	 */
+	public void addCircuitListener(CircuitListener listener)
+	{
+		if (listener != null && !_listeners.contains(listener))
+			_listeners.add(listener);
 	}
 	
 	/**
-	 * Returns all Lines in Circuit
-	 * @return {@link Line Lines} in Circuit
+	 * Removes a listener added by {@link #addCircuitListener(CircuitListener)}
+	 * @param listener {@link CircuitListener} to be removed
 	 */
-	public ArrayList<Line> getLines()
+	public void removeCircuitListener(CircuitListener listener)
 	{
-		ArrayList<Line> lines = new ArrayList<Line>();
-		for (Element e: _elements)
+		_listeners.remove(listener);
+	}
+	
+	private void fireAreaChanged(Rectangle area)
+	{
+		if (area == null)
+			return;
+		for (CircuitListener listener : _listeners)
 		{
-			if (e instanceof Component)
+			listener.areaChanged(area);
+		}
+	}
+	
+	private void fireLinesChanged(Connector conn)
+	{
+		ArrayList<Line> lines = _linesByConnector.get(conn);
+		if (lines != null)
+		{
+			for (Line line : lines)
 			{
-				//geht alle Verbindungen des Bauteils durch
-				for (Connector c1 : ((Component)e).getConnectors())
-				{
-					// geht alle verbundenen Connectoren durch
-					for (Connector c2 : c1.getConnections())
-					{
-						// f�gt eine neue Linie vom Start zum Endpunkt in die
-						// R�ckgabeliste ein
-						Connector conn1 = c1;
-						Connector conn2 = c2;
-						
-						lines.add(new Line(conn1, conn2));
-					}
-				}
+				fireAreaChanged(line.getBounds());
 			}
 		}
-		
-		ArrayList<Line> linesToRemove = new ArrayList<Line>();
-		// Verschachtelte Schleife, die die vorhnadenen duplette aus der Liste
-		// filtert.
-		ArrayList<Line> toRemove = new ArrayList<Line>(); //prevent ConcurrentComodificationException
-		for (Line l1 : lines)
+	}
+	
+	/**
+	 * Called by {@link Connector} after two connectors have been connected.
+	 * Adds a {@link Line} between them, if there is none yet, and merges their nets.
+	 * 
+	 * @param c1 {@link Connector} the line starts at
+	 * @param c2 {@link Connector} the line ends at
+	 */
+	void connectionAdded(Connector c1, Connector c2)
+	{
+		if (findLine(c1, c2) != null)
+			return;
+		Line line = new Line(c1, c2);
+		_lines.add(line);
+		_lineIndex.insert(line, line.getBounds());
+		fireAreaChanged(line.getBounds());
+		linesOf(c1).add(line);
+		linesOf(c2).add(line);
+		_netlist.connect(c1, c2);
+	}
+	
+	/**
+	 * Called by {@link Connector} after two connectors have been disconnected.
+	 * Removes the {@link Line} between them and updates their nets, unless one of them
+	 * is still connected to the other.
+	 * 
+	 * @param c1 first {@link Connector}
+	 * @param c2 second {@link Connector}
+	 */
+	void connectionRemoved(Connector c1, Connector c2)
+	{
+		if (c1.isConnectedTo(c2) || c2.isConnectedTo(c1))
+			return;
+		Line line = findLine(c1, c2);
+		if (line != null)
+			removeLine(line);
+		_netlist.disconnect(c1, c2);
+	}
+	
+	/**
+	 * Makes the Circuit the owner of an added {@link Element} and indexes its position,
+	 * its lines and its net
+	 * @param elem added Element
+	 */
+	private void register(Element elem)
+	{
+		elem._circuit = this;
+		Rectangle bounds = elem.getBounds();
+		_index.insert(elem, bounds);
+		extentAdded(bounds);
+		fireAreaChanged(elem.getBounds());
+		if (elem instanceof Component)
+		{
+			String type = ((Component)elem).getType();
+			LinkedHashSet<Component> components = _componentsByType.get(type);
+			if (components == null)
+			{
+				components = new LinkedHashSet<Component>();
+				_componentsByType.put(type, components);
+			}
+			components.add((Component)elem);
+		}
+		else if (elem instanceof Connector)
+		{
+			Connector conn = (Connector)elem;
+			_netlist.add(conn);
+			for (Connector c : conn.getConnections())
+			{
+				connectionAdded(conn, c);
+			}
+		}
+	}
+	
+	/**
+	 * Reverts {@link #register(Element)} for a removed {@link Element}
+	 * @param elem removed Element
+	 */
+	private void unregister(Element elem)
+	{
+		if (elem._circuit == this)
+			elem._circuit = null;
+		Rectangle bounds = _index.getBounds(elem);
+		fireAreaChanged(bounds);
+		extentRemoved(bounds);
+		_index.remove(elem);
+		if (elem instanceof Component)
 		{
-			for (Line l2 : lines)
+			String type = ((Component)elem).getType();
+			LinkedHashSet<Component> components = _componentsByType.get(type);
+			if (components != null)
 			{
-				// Referenzvergleich: soll verhindern, dass eine Leitung mit sich
-				// selbst verglichen wird
-				if (l1 != l2)
+				components.remove(elem);
+				if (components.isEmpty())
+					_componentsByType.remove(type);
+			}
+		}
+		else if (elem instanceof Connector)
+		{
+			_netlist.remove((Connector)elem);
+			ArrayList<Line> lines = _linesByConnector.get(elem);
+			if (lines != null)
+			{
+				for (Line line : new ArrayList<Line>(lines))
 				{
-					//wenn die Leitungen die selben Punkte hat
-					if (l1.equals(l2))
-						if (!linesToRemove.contains(l1))
-							linesToRemove.add(l2); //wird sie aus der Liste entfernt
+					removeLine(line);
 				}
 			}
 		}
-		lines.removeAll(linesToRemove);
+	}
+	
+	/**
+	 * Extends the bounding box of Circuit by the bounds of an added or moved {@link Element}
+	 */
+	private void extentAdded(Rectangle bounds)
+	{
+		if (_extentDirty)
+			return;
+		_minX = Math.min(_minX, bounds.x);
+		_minY = Math.min(_minY, bounds.y);
+		_maxX = Math.max(_maxX, bounds.x + bounds.width);
+		_maxY = Math.max(_maxY, bounds.y + bounds.height);
+	}
+	
+	/**
+	 * Marks the bounding box of Circuit for recomputation, if the old bounds of a moved
+	 * or removed {@link Element} touched its border
+	 */
+	private void extentRemoved(Rectangle bounds)
+	{
+		if (_extentDirty || bounds == null)
+			return;
+		if (bounds.x <= _minX || bounds.y <= _minY
+				|| bounds.x + bounds.width >= _maxX || bounds.y + bounds.height >= _maxY)
+			_extentDirty = true;
+	}
+	
+	/**
+	 * Recomputes the bounding box of Circuit, if it is marked dirty
+	 */
+	private void validateExtent()
+	{
+		if (!_extentDirty)
+			return;
+		resetExtent();
+		for (Element elem : _elements)
+		{
+			extentAdded(elem.getBounds());
+		}
+	}
+	
+	private void resetExtent()
+	{
+		_extentDirty = false;
+		_minX = Integer.MAX_VALUE;
+		_minY = Integer.MAX_VALUE;
+		_maxX = Integer.MIN_VALUE;
+		_maxY = Integer.MIN_VALUE;
+	}
+	
+	/**
+	 * Returns the {@link Line} between two connectors
+	 * @return Line or null, if there is none
+	 */
+	private Line findLine(Connector c1, Connector c2)
+	{
+		ArrayList<Line> lines = _linesByConnector.get(c1);
+		if (lines != null)
+		{
+			for (Line line : lines)
+			{
+				if (line.getOther(c1) == c2)
+					return line;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the list of lines of a connector, creates it if necessary
+	 */
+	private ArrayList<Line> linesOf(Connector conn)
+	{
+		ArrayList<Line> lines = _linesByConnector.get(conn);
+		if (lines == null)
+		{
+			lines = new ArrayList<Line>(2);
+			_linesByConnector.put(conn, lines);
+		}
 		return lines;
 	}
 	
+	private void removeLine(Line line)
+	{
+		_lines.remove(line);
+		fireAreaChanged(_lineIndex.getBounds(line));
+		_lineIndex.remove(line);
+		for (Connector conn : new Connector[] {line.getC1(), line.getC2()})
+		{
+			ArrayList<Line> lines = _linesByConnector.get(conn);
+			if (lines != null)
+			{
+				lines.remove(line);
+				if (lines.isEmpty())
+					_linesByConnector.remove(conn);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the filesystem path of Circuit
+	 * @return path of Circuit
+	 */
+	public String getPath()
+	{
+		return new String(_path);
+	}
+	
+	/**
+	 * Returns the name of Circuit
+	 * @return name of circuit
+	 */
+	public String getName()
+	{
+		return new String(_name);
+	}
+	
+	/**
+	 * Returns all Lines in Circuit. The lines are maintained while connectors
+	 * get connected and disconnected, so this doesn't create any objects.
+	 * @return unmodifiable view of the {@link Line Lines} in Circuit
+	 */
+	public Collection<Line> getLines()
+	{
+		return _linesView;
+	}
+	
+	/**
+	 * Returns all Lines starting or ending at a {@link Connector}
+	 * @param conn {@link Connector} of the lines
+	 * @return List of {@link Line Lines}, empty if the connector has no lines
+	 */
+	public List<Line> getLines(Connector conn)
+	{
+		ArrayList<Line> lines = _linesByConnector.get(conn);
+		if (lines == null)
+			return Collections.emptyList();
+		return Collections.unmodifiableList(lines);
+	}
+	
+	/**
+	 * Returns the {@link Netlist} grouping the connectors of this Circuit into nets.
+	 * It is kept up to date while elements are added, removed, connected and disconnected.
+	 * @return Netlist of Circuit
+	 */
+	public Netlist getNetlist()
+	{
+		return _netlist;
+	}
+	
 	/**
 	 * Uses getLines() and returns all lines with SelectionMode.Selected.
 	 * 
@@ -342,7 +854,7 @@ public class Circuit
 	 */
 	public Circuit() 
 	{
-		_elements = new ArrayList<Element>();
+		_elements = new ElementStore();
 		_name = new String("New Circuit");
 	}
 	
@@ -352,7 +864,7 @@ public class Circuit
 	 */
 	public Circuit(String name) 
 	{
-		_elements = new ArrayList<Element>();
+		_elements = new ElementStore();
 		_name = new String(name);
 	}
 	
@@ -364,7 +876,7 @@ public class Circuit
 	 */
 	public Circuit(Collection<Element> elems, String name) 
 	{
-		_elements = new ArrayList<Element>();
+		_elements = new ElementStore();
 		addElements(elems);
 		_name = new String(name);
 	}
@@ -380,9 +892,33 @@ public class Circuit
 		_blueprints.addAll(blueprints);
 	}
 	
+	// edge length of a cell of the spatial index, about the size of a component
+	private static final int SPATIAL_CELL_SIZE = 128;
+	/**
+	 * Duration of the queries of a position or a rectangle, shown by the performance HUD
+	 */
+	public static final Metrics.Histogram HIT_TEST_TIME = Metrics.histogram("circuit.hitTest", Metrics.Unit.NANOSECONDS);
+	
 	private ArrayList<ComponentBlueprint> _blueprints;
+	private final SpatialIndex<Element> _index = new SpatialIndex<Element>(SPATIAL_CELL_SIZE);
+	// components by typename, the type of a component never changes
+	private final LinkedHashMap<String, LinkedHashSet<Component>> _componentsByType = new LinkedHashMap<String, LinkedHashSet<Component>>();
+	// Line has no equals(Object), so the set compares lines by identity
+	private final LinkedHashSet<Line> _lines = new LinkedHashSet<Line>();
+	private final SpatialIndex<Line> _lineIndex = new SpatialIndex<Line>(SPATIAL_CELL_SIZE);
+	private final Collection<Line> _linesView = Collections.unmodifiableCollection(_lines);
+	private final IdentityHashMap<Connector, ArrayList<Line>> _linesByConnector = new IdentityHashMap<Connector, ArrayList<Line>>();
+	private final Netlist _netlist = new Netlist();
+	private final ArrayList<CircuitListener> _listeners = new ArrayList<CircuitListener>(1);
+	
+	// bounding box of all elements, empty while min > max
+	private int _minX = Integer.MAX_VALUE;
+	private int _minY = Integer.MAX_VALUE;
+	private int _maxX = Integer.MIN_VALUE;
+	private int _maxY = Integer.MIN_VALUE;
+	private boolean _extentDirty;
 	
-	private ArrayList<Element> _elements;
+	private ElementStore _elements;
 	private String _name;
 	private String _path;
 }
@@ -0,0 +1,19 @@
+package blitzEdit.core;
+
+import java.awt.Rectangle;
+
+/**
+ * Listener interface for changes of a {@link Circuit}.
+ * Used to redraw only the changed parts of a circuit.
+ */
+public interface CircuitListener
+{
+	/**
+	 * Called after an area of the circuit changed, i.e. an {@link Element} or {@link Line}
+	 * has been added, removed, moved, rotated or selected. A moved element reports
+	 * its old and its new area.
+	 * 
+	 * @param area	bounding box of the changed area, see {@link Element#getBounds()} and {@link Line#getBounds()}
+	 */
+	public void areaChanged(Rectangle area);
+}
@@ -6,10 +6,14 @@ import java.awt.geom.Point2D;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 import javafx.scene.canvas.GraphicsContext;
 import tools.SelectionMode;
-import tools.SvgRenderer;
+import tools.SpriteCache;
+import tools.SvgCache;
 
 /**
  * Represents an electrical Component
@@ -31,6 +35,7 @@ public class Component extends RotatableElement
 			conn.setPosition((int)(x + (conn.getX() - _position.getX())), (int)(y + (conn.getY() - _position.getY())));
 		}
 		_position.setLocation(x, y);
+		positionChanged();
 		
 		return this;
 	}
@@ -58,6 +63,7 @@ public class Component extends RotatableElement
 			conn.setPosition((conn.getX() - getX()) + x, (conn.getY() - getY()) + y);
 		}
 		_position.setLocation(x, y);
+		positionChanged();
 		
 		return this;
 	}
@@ -87,14 +93,23 @@ public class Component extends RotatableElement
 	 */
 	public String getSvgFileString()
 	{
-		return new String(_svgFileString);
+		return _svg.getContent();
+	}
+	
+	/**
+	 * Returns the shared cache entry of the svg-image
+	 * @return {@link SvgCache.Entry} of svg image
+	 */
+	public SvgCache.Entry getSvg()
+	{
+		return _svg;
 	}
 	
 	
 	@Override
 	public void draw(GraphicsContext gc, double scale, SelectionMode mode)
 	{
-		SvgRenderer.renderSvgString(getSvgFileString(), gc, getX(), getY(), scale, getRotation(), mode);
+		SpriteCache.draw(_svg, gc, getX(), getY(), scale, getRotation(), mode);
 	}
 	
 	/**
@@ -205,11 +220,12 @@ public class Component extends RotatableElement
 	public ArrayList<Component> getConnectedComponents()
 	{
 		ArrayList<Component> resultList = new ArrayList<Component>();
+		Set<Component> found = Collections.newSetFromMap(new IdentityHashMap<Component, Boolean>());
 		for (Connector c : _ports)
 		{
 			for(Connector co : c.getConnections())
 			{
-				if(!resultList.contains(co.getOwner()))
+				if(found.add(co.getOwner()))
 				{
 					resultList.add(co.getOwner());
 				}
@@ -352,7 +368,7 @@ public class Component extends RotatableElement
 	{
 		_type = new String(type);
 		_svgFilePath = new String(svg);
-		_svgFileString = SvgRenderer.getSvgFileString(_svgFilePath);
+		_svg = SvgCache.get(_svgFilePath);
 		_ports = new ArrayList<Connector>();
 		_properties = new ArrayList<ComponentProperty>();
 		for (int i = 0; i < connRelPos.length; i++) 
@@ -376,7 +392,7 @@ public class Component extends RotatableElement
 	{
 		_type = new String(type);
 		_svgFilePath = new String(svg);
-		_svgFileString = SvgRenderer.getSvgFileString(_svgFilePath);
+		_svg = SvgCache.get(_svgFilePath);
 		_ports = new ArrayList<Connector>();
 		_properties = new ArrayList<ComponentProperty>();
 	}
@@ -410,7 +426,7 @@ public class Component extends RotatableElement
 	{
 		super(x, y, rot);
 		initialize(x, y, rot, type, svg, connRelPos, connRelRot);
-		super.setSize(SvgRenderer.getSvgWidth(_svgFileString), SvgRenderer.getSvgHeight(_svgFileString));
+		super.setSize(_svg.getDisplayList().getWidth(), _svg.getDisplayList().getHeight());
 	}
 	
 	/**
@@ -426,7 +442,7 @@ public class Component extends RotatableElement
 	{
 		super(x, y, rot);
 		initialize(x, y, rot, type, svg);
-		super.setSize(SvgRenderer.getSvgWidth(_svgFileString), SvgRenderer.getSvgHeight(_svgFileString));
+		super.setSize(_svg.getDisplayList().getWidth(), _svg.getDisplayList().getHeight());
 	}
 	
 	/**
@@ -490,6 +506,6 @@ public class Component extends RotatableElement
 	private ArrayList<ComponentProperty>_properties;
 	private ArrayList<Connector> _ports;
 	private String _svgFilePath;
-	private String _svgFileString;
+	private SvgCache.Entry _svg;
 	private String _type;
 }
@@ -3,6 +3,8 @@ package blitzEdit.core;
 import java.util.ArrayList;
 import java.util.List;
 
+import tools.SvgCache;
+
 /**
  * Defines an archetype for a Component.
  * Used by the {@link Component} constructor to make sure components of the same type
@@ -26,6 +28,15 @@ public class ComponentBlueprint
 	{
 		return new String(_svgFilePath);
 	}
+	
+	/**
+	 * @return shared cache entry of the svg-image assigned to this blueprint
+	 */
+	public SvgCache.Entry getSvg()
+	{
+		return _svg;
+	}
+	
 	/**
 	 * @return array holding the relative positions of the components connectors
 	 */
@@ -114,6 +125,7 @@ public class ComponentBlueprint
 	{
 		_type = new String(type);
 		_svgFilePath = new String(svgFilePath);
+		_svg = SvgCache.get(_svgFilePath);
 		_conRelPos = relPos.clone();
 		_conRelRot = conRelRot.clone();
 		_sizeX = sizeX;
@@ -124,6 +136,7 @@ public class ComponentBlueprint
 	
 	private String _type;
 	private String _svgFilePath;
+	private SvgCache.Entry _svg;
 	private int [][] _conRelPos;
 	private short [] _conRelRot;
 	private int _sizeX;
@@ -3,6 +3,7 @@ package blitzEdit.core;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.text.Font;
 import javafx.scene.text.TextAlignment;
+import blitzEdit.storage.XMLParser;
 import tools.SelectionMode;
 import tools.SvgRenderer;
 
@@ -69,8 +70,7 @@ public class ComponentLibrary
 		
 		for (ComponentBlueprint cb : blueprints)
 		{
-			String svgString = SvgRenderer.getSvgFileString(cb.getSvgFilePath());
-			SvgRenderer.renderSvgString(svgString, gc, posX, posY, _scale, SelectionMode.UNSELECTED);
+			SvgRenderer.renderSvg(cb.getSvg().getDisplayList(), gc, posX, posY, _scale, SelectionMode.UNSELECTED);
 
 			double compSizeX = cb.getSizeX() * _scale;
 			double compSizeY = cb.getSizeY() * _scale;
@@ -131,17 +131,41 @@ public class ComponentLibrary
 	
 	/**
 	 * Adds a blieprint to the BlueprintContainer instance and to the local blueprints array.
+	 * If the container already has a blueprint of the same type, that one is listed instead.
 	 * 
 	 * @param filepath Filepath containing the blueprint
 	 */
 	public void addBlueprint(File filepath)
 	{
-		ComponentBlueprint bp = BlueprintContainer.get().addBlueprint(filepath);
-		if(bp != null)
+		addBlueprint(XMLParser.readBlueprint(filepath.toString()));
+	}
+	
+	/**
+	 * Adds an already read blueprint to the BlueprintContainer instance and to the local blueprints array.
+	 * If the container already has a blueprint of the same type, e.g. from another library
+	 * or an earlier import, that one is listed instead.
+	 * 
+	 * @param	blueprint	Blueprint to be added
+	 * @return	boolean		True if the blueprint or the contained one of its type was listed,
+	 * 						false if it is null or its type is already listed in this library
+	 */
+	public boolean addBlueprint(ComponentBlueprint blueprint)
+	{
+		if(blueprint == null)
+		{
+			return false;
+		}
+		ComponentBlueprint bp = BlueprintContainer.get().addBlueprint(blueprint);
+		if(bp == null)
+		{
+			bp = BlueprintContainer.get().getBlueprint(blueprint.getType());
+		}
+		if(bp != null && !blueprints.contains(bp))
 		{
 			blueprints.add(bp);
+			return true;
 		}
-		
+		return false;
 	}
 	
 	/**
@@ -205,8 +229,7 @@ public class ComponentLibrary
 			gc.setFont(new Font(9));
 			gc.setTextAlign(TextAlignment.CENTER);
 			gc.strokeText(bp.getType(), rect.x + rect.width * 0.5, rect.y + 10 + rect.height);
-			String svgString = SvgRenderer.getSvgFileString(bp.getSvgFilePath());
-			SvgRenderer.renderSvgString(svgString, gc, posX, posY, _scale, SelectionMode.UNSELECTED);
+			SvgRenderer.renderSvg(bp.getSvg().getDisplayList(), gc, posX, posY, _scale, SelectionMode.UNSELECTED);
 		}
 		
 		/**
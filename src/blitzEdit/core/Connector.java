@@ -7,6 +7,7 @@ import tools.GraphicDesignContainer;
 import tools.SelectionMode;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.AffineTransform;
 
@@ -83,6 +84,13 @@ public final class Connector extends Element
 		return shape.contains(x, y);
 	}
 	
+	@Override
+	public Rectangle getBounds()
+	{
+		// same area as the ellipse used in contains()
+		return new Rectangle(_position.x - _sizeX, _position.y - _sizeY, _sizeX*2, _sizeY*2);
+	}
+	
 	/**
 	 * Returns all connectors which are connected to this connector
 	 * @return List of all connected connectors
@@ -121,10 +129,12 @@ public final class Connector extends Element
 		{
 			_position.setLocation(getAnkerPoint());
 			_length = 0;
+			positionChanged();
 			return this;
 		}
 		_length += length;
 		_position.translate((int)(dx * length), (int)(dy * length));
+		positionChanged();
 		
 		return this;
 	}
@@ -204,6 +214,8 @@ public final class Connector extends Element
 		ArrayList<Connector> newConnections = new ArrayList<Connector>(_connections);
 		newConnections.add(conn);
 		_connections = newConnections;
+		// register before the reverse connection, so this connector is the start of the line
+		connectionAdded(conn);
 		conn.connect(this);
 		return true;
 	}
@@ -231,6 +243,11 @@ public final class Connector extends Element
 			_connected = true;
 		
 		_connections.addAll(conns);
+		for (Connector c : conns)
+		{
+			if (c != this)
+				connectionAdded(c);
+		}
 	}
 	
 	/**
@@ -257,6 +274,7 @@ public final class Connector extends Element
 				_connected = false;
 			
 			conn.disconnect(this);
+			connectionRemoved(conn);
 			return true;
 		}
 		return false;
@@ -293,13 +311,40 @@ public final class Connector extends Element
 			for (Connector c : comp.getConnectors())
 			{
 				if (_connections.contains(c))
+				{
 					_connections.remove(c);
+					connectionRemoved(c);
+				}
 			}
 		}
 		if (_connections.isEmpty())
 			_connected = false;
 	}
 	
+	/**
+	 * Informs the {@link Circuit} containing this connector about a new connection
+	 * @param conn connected connector
+	 */
+	private void connectionAdded(Connector conn)
+	{
+		if (_circuit != null)
+			_circuit.connectionAdded(this, conn);
+		else if (conn._circuit != null)
+			conn._circuit.connectionAdded(conn, this);
+	}
+	
+	/**
+	 * Informs the {@link Circuit} containing this connector about a removed connection
+	 * @param conn disconnected connector
+	 */
+	private void connectionRemoved(Connector conn)
+	{
+		if (_circuit != null)
+			_circuit.connectionRemoved(this, conn);
+		else if (conn._circuit != null)
+			conn._circuit.connectionRemoved(conn, this);
+	}
+	
 	/**
 	 * checks whether this connector has a connection to another connector
 	 * @return true if connections exist, else false
@@ -64,6 +64,7 @@ public abstract class Element
 	{
 		_sizeX = sizeX;
 		_sizeY = sizeY;
+		positionChanged();
 		return this;
 	}
   
@@ -105,7 +106,12 @@ public abstract class Element
 	 */
 	public Element setSelectionMode(SelectionMode mode)
 	{
-		_selectionMode = mode;
+		if (_selectionMode != mode)
+		{
+			_selectionMode = mode;
+			if (_circuit != null)
+				_circuit.selectionChanged(this);
+		}
 		return this;
 	}
 	
@@ -118,6 +124,7 @@ public abstract class Element
 	public Element setPosition(int x, int y)
 	{
 		_position.setLocation(x, y);
+		positionChanged();
 		return this;
 	}
 	
@@ -188,6 +195,29 @@ public abstract class Element
 		return r.intersects(rect);
 	}
 
+	/**
+	 * Returns the bounding box of the area covered by this Element,
+	 * i.e. every point accepted by {@link #contains(int, int)} and every
+	 * rectangle accepted by {@link #intersects(Rectangle)} lies within it
+	 *
+	 * @return bounding box of Element
+	 */
+	public Rectangle getBounds()
+	{
+		return new Rectangle((int)_position.getX()-_sizeX/2, (int)_position.getY()-_sizeY/2,
+								_sizeX + _sizeX/2, _sizeY + _sizeY/2);
+	}
+
+	/**
+	 * Has to be called whenever location, size or rotation of this Element changed.
+	 * Keeps the {@link Circuit} containing this Element up to date.
+	 */
+	protected void positionChanged()
+	{
+		if (_circuit != null)
+			_circuit.elementChanged(this);
+	}
+
 	/**
 	 * Constructs new Element at designated location.
 	 * Sets sizeX and sizeY to a default value of 20.
@@ -230,5 +260,7 @@ public abstract class Element
 	protected SelectionMode _selectionMode = SelectionMode.UNSELECTED;
 	protected int _sizeX;
 	protected int _sizeY;
-	
+	// circuit this element has been added to, maintained by Circuit
+	Circuit _circuit;
+
 }
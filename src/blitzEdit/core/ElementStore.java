@@ -0,0 +1,204 @@
+package blitzEdit.core;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Insertion ordered set of {@link Element Elements} used by {@link Circuit}.
+ * Elements are compared by identity. Adding, removing and membership checks
+ * don't depend on the number of stored elements: removed elements leave a gap
+ * in the list, which is closed in a single pass the next time the list is read.
+ * Iterators skip the gaps and fail fast: they throw a {@link ConcurrentModificationException}
+ * if the store is modified while iterating, so copy the elements before removing some of them.
+ */
+final class ElementStore implements Iterable<Element>
+{
+	/**
+	 * Appends an element
+	 * @param elem Element to be added
+	 * @return true if added, false if already contained
+	 */
+	public boolean add(Element elem)
+	{
+		if (_positions.containsKey(elem))
+			return false;
+		_positions.put(elem, _list.size());
+		_list.add(elem);
+		_modCount++;
+		return true;
+	}
+
+	/**
+	 * Removes an element
+	 * @param elem Element to be removed
+	 * @return true if removed, false if not contained
+	 */
+	public boolean remove(Element elem)
+	{
+		Integer pos = _positions.remove(elem);
+		if (pos == null)
+			return false;
+		int i = pos.intValue();
+		if (i == _list.size() - 1)
+		{
+			_list.remove(i);
+		}
+		else
+		{
+			_list.set(i, null);
+			_gaps++;
+		}
+		_modCount++;
+		return true;
+	}
+
+	/**
+	 * Checks if an element is contained
+	 * @param elem Element to be checked
+	 * @return true if contained, else false
+	 */
+	public boolean contains(Element elem)
+	{
+		return _positions.containsKey(elem);
+	}
+
+	/**
+	 * @return number of stored elements
+	 */
+	public int size()
+	{
+		return _positions.size();
+	}
+
+	/**
+	 * Removes all elements
+	 */
+	public void clear()
+	{
+		_positions.clear();
+		_list.clear();
+		_gaps = 0;
+		_modCount++;
+	}
+
+	/**
+	 * Returns the stored elements in insertion order
+	 * @return unmodifiable List of elements, reflects later changes.
+	 * 		   Gaps are closed on every access, so the list never contains null.
+	 * 		   Its iterators fail fast if elements are added or removed while iterating.
+	 */
+	public List<Element> asList()
+	{
+		return _view;
+	}
+
+	@Override
+	public Iterator<Element> iterator()
+	{
+		compact();
+		return new Itr();
+	}
+
+	/**
+	 * Closes the gaps left by removed elements
+	 */
+	void compact()
+	{
+		if (_gaps == 0)
+			return;
+		int j = 0;
+		for (int i = 0; i < _list.size(); i++)
+		{
+			Element elem = _list.get(i);
+			if (elem == null)
+				continue;
+			if (i != j)
+			{
+				_list.set(j, elem);
+				_positions.put(elem, j);
+			}
+			j++;
+		}
+		_list.subList(j, _list.size()).clear();
+		_gaps = 0;
+	}
+
+	/**
+	 * Read only iterator, skips gaps and fails fast on concurrent modification
+	 */
+	private final class Itr implements Iterator<Element>
+	{
+		@Override
+		public boolean hasNext()
+		{
+			while (_cursor < _list.size() && _list.get(_cursor) == null)
+			{
+				_cursor++;
+			}
+			return _cursor < _list.size();
+		}
+
+		@Override
+		public Element next()
+		{
+			if (_modCount != _expectedModCount)
+				throw new ConcurrentModificationException();
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return _list.get(_cursor++);
+		}
+
+		private int _cursor;
+		private final int _expectedModCount = _modCount;
+	}
+
+	/**
+	 * Read only view of the stored elements, closes the gaps before every access
+	 */
+	private final class View extends AbstractList<Element> implements RandomAccess
+	{
+		@Override
+		public Element get(int index)
+		{
+			compact();
+			return _list.get(index);
+		}
+
+		@Override
+		public int size()
+		{
+			return _positions.size();
+		}
+
+		@Override
+		public Iterator<Element> iterator()
+		{
+			return ElementStore.this.iterator();
+		}
+	}
+
+	/**
+	 * Constructs new empty ElementStore
+	 */
+	public ElementStore()
+	{
+		_list = new ArrayList<Element>();
+		_view = new View();
+		_positions = new IdentityHashMap<Element, Integer>();
+	}
+
+	private final ArrayList<Element> _list;
+	private final List<Element> _view;
+	// index of every element in _list
+	private final IdentityHashMap<Element, Integer> _positions;
+	// number of removed elements still occupying a slot in _list
+	private int _gaps;
+	// number of structural modifications, checked by the iterators
+	private int _modCount;
+}
@@ -1,6 +1,7 @@
 package blitzEdit.core;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 import javafx.scene.canvas.GraphicsContext;
 
 import tools.GraphicDesignContainer;
@@ -16,9 +17,10 @@ public class Line
 {
 	private Connector _c1;
 	private Connector _c2;
-	
-	private SelectionMode _selMode = SelectionMode.UNSELECTED;
-	
+
+	// reused by drawLine, so drawing a line doesn't allocate
+	private Point _corner = new Point();
+
 	/**
 	 * returns Connector 1 of this line
 	 * @return {@link Connector} 1
@@ -37,9 +39,42 @@ public class Line
 		return _c2;
 	}
 	
+	/**
+	 * Returns the {@link SelectionMode} of this line. A line is selected, if one of its
+	 * connectors or the owner of one of its connectors is selected.
+	 * @return SelectionMode.SELECTED or SelectionMode.UNSELECTED
+	 */
 	public SelectionMode getSelectionMode()
 	{
-		return _selMode;
+		if (isSelected(_c1) || isSelected(_c2))
+			return SelectionMode.SELECTED;
+		return SelectionMode.UNSELECTED;
+	}
+
+	/**
+	 * Returns the {@link Connector} at the other end of this line
+	 * @param c {@link Connector} at one end of this line
+	 * @return {@link Connector} at the other end, null if c isn't part of this line
+	 */
+	public Connector getOther(Connector c)
+	{
+		if (c == _c1)
+			return _c2;
+		if (c == _c2)
+			return _c1;
+		return null;
+	}
+	
+	/**
+	 * Returns the bounding box of this line. The corner point takes its coordinates
+	 * from the two connectors, so the box spanned by them contains the whole line.
+	 * @return bounding box of Line
+	 */
+	public Rectangle getBounds()
+	{
+		int x = Math.min(_c1.getX(), _c2.getX());
+		int y = Math.min(_c1.getY(), _c2.getY());
+		return new Rectangle(x, y, Math.max(_c1.getX(), _c2.getX()) - x, Math.max(_c1.getY(), _c2.getY()) - y);
 	}
 	
 	/**
@@ -66,22 +101,36 @@ public class Line
 	 * @param gc	GraphicContext to draw on
 	 */
 	public void draw(GraphicsContext gc)
+	{
+		draw(gc, false);
+	}
+	
+	/**
+	 * draws the line on a {@link GraphicsContext}
+	 * @param gc		GraphicContext to draw on
+	 * @param straight	if true, the line is drawn straight without corner point,
+	 * 					used when the line is too small on the screen to show the corner
+	 */
+	public void draw(GraphicsContext gc, boolean straight)
 	{	
 		gc.save();
 		gc.setLineWidth(GraphicDesignContainer.line_width);
-		if(/*_c1.getOwner().getSelectionMode() == SelectionMode.SELECTED ||
-				_c2.getOwner().getSelectionMode() == SelectionMode.SELECTED*/
-				_selMode == SelectionMode.SELECTED)
+		if(getSelectionMode() == SelectionMode.SELECTED)
 		{
 			gc.setStroke(GraphicDesignContainer.selected_line_color);
-			_selMode = SelectionMode.SELECTED;
 		}
 		else
 		{
 			gc.setStroke(GraphicDesignContainer.line_color);
-			_selMode = SelectionMode.UNSELECTED;
 		}
-		drawLine(gc);
+		if (straight)
+		{
+			gc.strokeLine(_c1.getX(), _c1.getY(), _c2.getX(), _c2.getY());
+		}
+		else
+		{
+			drawLine(gc);
+		}
 		gc.restore();
 	}
 	
@@ -92,57 +141,67 @@ public class Line
 	 */
 	private void drawLine(GraphicsContext gc)
 	{
-		Point p1 = _c1.getPosition();
-		Point p2 = _c2.getPosition();
-		short alpha1 = _c1.getRotation();
-		short alpha2 = _c2.getRotation();
+		int x1 = _c1.getX();
+		int y1 = _c1.getY();
+		int x2 = _c2.getX();
+		int y2 = _c2.getY();
 		
-		Point p3 = getCornerPoint(p1, alpha1, p2, alpha2);
+		Point p3 = getCornerPoint(x1, y1, _c1.getRotation(), x2, y2, _corner);
 		
-		gc.strokeLine(p1.x, p1.y, p3.x, p3.y);
-		gc.strokeLine(p2.x, p2.y, p3.x, p3.y);
+		gc.strokeLine(x1, y1, p3.x, p3.y);
+		gc.strokeLine(x2, y2, p3.x, p3.y);
 	}
 	
 	/**
 	 * Private method called by drawLine
 	 * Returns a Point specifying the Corner Point for this line, considering
-	 * the position and rotation of the connected connectors.
-	 * @param 	p1			Contains first point
+	 * the position of the connected connectors and the rotation of the first one.
+	 * @param 	x1			x-coordinate of first point
+	 * @param 	y1			y-coordinate of first point
 	 * @param 	alpha1		Rotation of first point
-	 * @param 	p2			Contains second point
-	 * @param 	alpha2		Rotation of second point
-	 * @return 	Point		Corner Point for line
+	 * @param 	x2			x-coordinate of second point
+	 * @param 	y2			y-coordinate of second point
+	 * @param 	p3			Point receiving the result
+	 * @return 	Point		Corner Point for line (p3)
 	 */
-	private Point getCornerPoint(Point p1, short alpha1, Point p2, short alpha2)
+	private static Point getCornerPoint(int x1, int y1, short alpha1, int x2, int y2, Point p3)
 	{
-		Point p3 = new Point();
 		//je nach winkel wird ein guenstiger eckpunkt gesucht
 		//winkel zeigt in positive y-richtung -> groeerer der beiden y-werte usw.
 		if (alpha1 < 45)
 		{
-			p3.y = Math.max(p1.y, p2.y);
+			p3.y = Math.max(y1, y2);
 			// wenn y von p1 bernommen wurde, wird x von p2 bernommen
 			// und umgekehrt
-			p3.x = (p3.y == p1.y) ? p2.x : p1.x;
+			p3.x = (p3.y == y1) ? x2 : x1;
 		}
 		else if (alpha1 < 135)
 		{
-			p3.x = Math.min(p1.x, p2.x);
-			p3.y = (p3.x == p1.x) ? p2.y : p1.y;
+			p3.x = Math.min(x1, x2);
+			p3.y = (p3.x == x1) ? y2 : y1;
 		}
 		else if (alpha1 < 225)
 		{
-			p3.y = Math.min(p1.y, p2.y);
-			p3.x = (p3.y == p1.y) ? p2.x : p1.x;
+			p3.y = Math.min(y1, y2);
+			p3.x = (p3.y == y1) ? x2 : x1;
 		}
 		else
 		{
-			p3.x = Math.max(p1.x, p2.x);
-			p3.y = (p3.x == p1.x) ? p2.y : p1.y;
+			p3.x = Math.max(x1, x2);
+			p3.y = (p3.x == x1) ? y2 : y1;
 		}
 		return p3;
 	}
 	
+	/**
+	 * Checks if a connector or its owner is selected
+	 */
+	private static boolean isSelected(Connector c)
+	{
+		return c.getSelectionMode() == SelectionMode.SELECTED
+				|| (c.getOwner() != null && c.getOwner().getSelectionMode() == SelectionMode.SELECTED);
+	}
+	
 	/**
 	 * constructs a new Line
 	 * @param c1 {@link Connector} 1
@@ -152,10 +211,5 @@ public class Line
 	{
 		_c1 = c1;
 		_c2 = c2;
-		if (c1.getOwner().getSelectionMode() == SelectionMode.SELECTED
-				|| c2.getOwner().getSelectionMode() == SelectionMode.SELECTED
-				|| c1.getSelectionMode() == SelectionMode.SELECTED
-				|| c2.getSelectionMode() == SelectionMode.SELECTED)
-		_selMode = SelectionMode.SELECTED;
 	}
 }
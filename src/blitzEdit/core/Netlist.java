@@ -0,0 +1,331 @@
+package blitzEdit.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Groups the {@link Connector Connectors} of a {@link Circuit} into electrical nets.
+ * A net contains all connectors which are connected with each other, directly or
+ * over other connectors.
+ *
+ * The nets are stored in a union-find structure which is updated by the
+ * {@link Circuit} whenever connectors are added, removed, connected or disconnected.
+ * Connecting merges two nets in near-constant time. Disconnecting or removing
+ * a connector only rebuilds the net it belonged to.
+ *
+ * Net ids are only valid until the next change of the circuit.
+ */
+public class Netlist
+{
+	/**
+	 * Returns the id of the net a {@link Connector} belongs to
+	 * @param conn {@link Connector} to look up
+	 * @return net id, -1 if the connector isn't part of the circuit
+	 */
+	public int getNetId(Connector conn)
+	{
+		Integer id = _ids.get(conn);
+		if (id == null)
+			return -1;
+		return find(id);
+	}
+
+	/**
+	 * Checks if two connectors are on the same net
+	 * @param c1 first {@link Connector}
+	 * @param c2 second {@link Connector}
+	 * @return true if both are on the same net, else false
+	 */
+	public boolean isSameNet(Connector c1, Connector c2)
+	{
+		int net = getNetId(c1);
+		return net != -1 && net == getNetId(c2);
+	}
+
+	/**
+	 * Returns all connectors on a net
+	 * @param netId id of the net
+	 * @return List of {@link Connector Connectors}, null if there is no net with this id
+	 */
+	public ArrayList<Connector> getNetMembers(int netId)
+	{
+		if (netId < 0 || netId >= _connectors.length || _connectors[netId] == null)
+			return null;
+		ArrayList<Connector> members = new ArrayList<Connector>(_size[find(netId)]);
+		int i = netId;
+		do
+		{
+			members.add(_connectors[i]);
+			i = _next[i];
+		} while (i != netId);
+		return members;
+	}
+
+	/**
+	 * Returns all connectors on the net of a {@link Connector}
+	 * @param conn {@link Connector} on the net
+	 * @return List of {@link Connector Connectors}, null if the connector isn't part of the circuit
+	 */
+	public ArrayList<Connector> getNetMembers(Connector conn)
+	{
+		Integer id = _ids.get(conn);
+		if (id == null)
+			return null;
+		return getNetMembers(id.intValue());
+	}
+
+	/**
+	 * Returns the number of connectors on a net
+	 * @param netId id of the net
+	 * @return number of connectors, 0 if there is no net with this id
+	 */
+	public int getNetSize(int netId)
+	{
+		if (netId < 0 || netId >= _connectors.length || _connectors[netId] == null)
+			return 0;
+		return _size[find(netId)];
+	}
+
+	/**
+	 * Returns the ids of all nets
+	 * @return List of net ids
+	 */
+	public ArrayList<Integer> getNetIds()
+	{
+		ArrayList<Integer> ids = new ArrayList<Integer>(_netCount);
+		for (int i = 0; i < _end; i++)
+		{
+			if (_connectors[i] != null && _parent[i] == i)
+				ids.add(i);
+		}
+		return ids;
+	}
+
+	/**
+	 * @return number of nets
+	 */
+	public int getNetCount()
+	{
+		return _netCount;
+	}
+
+	/**
+	 * @return number of connectors in this netlist
+	 */
+	public int getConnectorCount()
+	{
+		return _ids.size();
+	}
+
+	/**
+	 * Adds a {@link Connector} as a net of its own and merges it with
+	 * the nets of all connectors it is connected to.
+	 * @param conn {@link Connector} to be added
+	 */
+	void add(Connector conn)
+	{
+		if (_ids.containsKey(conn))
+			return;
+		int id = allocate();
+		_connectors[id] = conn;
+		_ids.put(conn, id);
+		makeSingle(id);
+		_netCount++;
+
+		for (Connector c : conn.getConnections())
+		{
+			Integer other = _ids.get(c);
+			if (other != null)
+				union(id, other);
+		}
+	}
+
+	/**
+	 * Removes a {@link Connector} and splits its net if necessary
+	 * @param conn {@link Connector} to be removed
+	 */
+	void remove(Connector conn)
+	{
+		Integer id = _ids.get(conn);
+		if (id == null)
+			return;
+		int[] members = detachNet(id);
+		_ids.remove(conn);
+		_connectors[id] = null;
+		_netCount--;
+		_free[_freeCount++] = id;
+		rejoin(members);
+	}
+
+	/**
+	 * Merges the nets of two connected connectors
+	 * @param c1 first {@link Connector}
+	 * @param c2 second {@link Connector}
+	 */
+	void connect(Connector c1, Connector c2)
+	{
+		Integer id1 = _ids.get(c1);
+		Integer id2 = _ids.get(c2);
+		if (id1 != null && id2 != null)
+			union(id1, id2);
+	}
+
+	/**
+	 * Rebuilds the net of two disconnected connectors, which may now be split
+	 * @param c1 first {@link Connector}
+	 * @param c2 second {@link Connector}
+	 */
+	void disconnect(Connector c1, Connector c2)
+	{
+		Integer id1 = _ids.get(c1);
+		Integer id2 = _ids.get(c2);
+		if (id1 == null || id2 == null || find(id1) != find(id2))
+			return;
+		rejoin(detachNet(id1));
+	}
+
+	/**
+	 * Removes all connectors
+	 */
+	void clear()
+	{
+		_ids.clear();
+		Arrays.fill(_connectors, 0, _end, null);
+		_end = 0;
+		_freeCount = 0;
+		_netCount = 0;
+	}
+
+	/**
+	 * Finds the root of a net, halving the path on the way
+	 */
+	private int find(int i)
+	{
+		while (_parent[i] != i)
+		{
+			_parent[i] = _parent[_parent[i]];
+			i = _parent[i];
+		}
+		return i;
+	}
+
+	/**
+	 * Merges two nets by size and splices their member rings
+	 */
+	private void union(int a, int b)
+	{
+		int ra = find(a);
+		int rb = find(b);
+		if (ra == rb)
+			return;
+		if (_size[ra] < _size[rb])
+		{
+			int t = ra;
+			ra = rb;
+			rb = t;
+		}
+		_parent[rb] = ra;
+		_size[ra] += _size[rb];
+		int t = _next[ra];
+		_next[ra] = _next[rb];
+		_next[rb] = t;
+		_netCount--;
+	}
+
+	/**
+	 * Turns all members of the net of connector i into nets of their own
+	 * @return ids of the former members
+	 */
+	private int[] detachNet(int i)
+	{
+		int[] members = new int[_size[find(i)]];
+		int n = 0;
+		int j = i;
+		do
+		{
+			members[n++] = j;
+			j = _next[j];
+		} while (j != i);
+
+		for (int m : members)
+		{
+			makeSingle(m);
+		}
+		_netCount += members.length - 1;
+		return members;
+	}
+
+	/**
+	 * Merges detached connectors again according to their connections
+	 */
+	private void rejoin(int[] members)
+	{
+		for (int m : members)
+		{
+			Connector conn = _connectors[m];
+			if (conn == null)
+				continue;
+			for (Connector c : conn.getConnections())
+			{
+				Integer other = _ids.get(c);
+				if (other != null)
+					union(m, other);
+			}
+		}
+	}
+
+	private void makeSingle(int i)
+	{
+		_parent[i] = i;
+		_next[i] = i;
+		_size[i] = 1;
+	}
+
+	/**
+	 * Returns a free slot, grows the arrays if necessary
+	 */
+	private int allocate()
+	{
+		if (_freeCount > 0)
+			return _free[--_freeCount];
+		if (_end == _connectors.length)
+		{
+			int capacity = _connectors.length * 2;
+			_connectors = Arrays.copyOf(_connectors, capacity);
+			_parent = Arrays.copyOf(_parent, capacity);
+			_next = Arrays.copyOf(_next, capacity);
+			_size = Arrays.copyOf(_size, capacity);
+			_free = Arrays.copyOf(_free, capacity);
+		}
+		return _end++;
+	}
+
+	/**
+	 * Constructs new empty Netlist
+	 */
+	Netlist()
+	{
+		_ids = new IdentityHashMap<Connector, Integer>();
+		_connectors = new Connector[INITIAL_CAPACITY];
+		_parent = new int[INITIAL_CAPACITY];
+		_next = new int[INITIAL_CAPACITY];
+		_size = new int[INITIAL_CAPACITY];
+		_free = new int[INITIAL_CAPACITY];
+	}
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private IdentityHashMap<Connector, Integer> _ids;
+	private Connector[] _connectors;
+	// union-find parent of every slot
+	private int[] _parent;
+	// next member of the same net, the members of a net form a ring
+	private int[] _next;
+	// number of members, only valid for roots
+	private int[] _size;
+	private int[] _free;
+	private int _freeCount;
+	private int _end;
+	private int _netCount;
+}
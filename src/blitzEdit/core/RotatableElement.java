@@ -30,6 +30,7 @@ public abstract class RotatableElement extends Element
 	{
 		rotation =  (short)Math.abs((int)rotation);
 		_rotation = (short) (rotation % (short)360);
+		positionChanged();
 	}
 	
 	/**
@@ -40,6 +41,7 @@ public abstract class RotatableElement extends Element
 	{
 		short r = (short)(((int)_rotation + rotation) % 360);
 		_rotation = (short)((r < 0) ?  360 + r : r);
+		positionChanged();
 	}
 	
 	// Tests if the point (x, y) is contained by element
@@ -60,6 +62,19 @@ public abstract class RotatableElement extends Element
 		return rotatableRect.intersects(rect);
 	}
 	
+	@Override
+	public Rectangle getBounds()
+	{
+		// bounding box of the rotated rectangle, widened by one pixel because
+		// RotatableRectangle truncates the rotated corners
+		double rad = Math.toRadians(_rotation);
+		double cos = Math.abs(Math.cos(rad));
+		double sin = Math.abs(Math.sin(rad));
+		int halfX = (int)Math.ceil((_sizeX * cos + _sizeY * sin) / 2) + 1;
+		int halfY = (int)Math.ceil((_sizeX * sin + _sizeY * cos) / 2) + 1;
+		return new Rectangle(getX() - halfX, getY() - halfY, 2 * halfX, 2 * halfY);
+	}
+	
 	/**
 	 * Constructs new RotatableElement
 	 * 
@@ -0,0 +1,323 @@
+package blitzEdit.core;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Uniform grid used by {@link Circuit} to find elements by position without
+ * scanning all of them. Every item is registered in all cells its bounding box
+ * overlaps, so point and rectangle queries only have to look at the items of
+ * the cells they touch.
+ *
+ * Results of a query are returned in insertion order, so callers see the
+ * same order as when iterating the circuit.
+ *
+ * @param <T> type of the indexed items
+ */
+final class SpatialIndex<T>
+{
+	/**
+	 * Registers an item with its bounding box. If the item is already
+	 * indexed, its bounding box is updated instead.
+	 *
+	 * @param item		item to be indexed
+	 * @param bounds	bounding box of the item
+	 */
+	public void insert(T item, Rectangle bounds)
+	{
+		if (_entries.containsKey(item))
+		{
+			update(item, bounds);
+			return;
+		}
+		Entry<T> entry = new Entry<T>(item, _nextOrder++);
+		entry.setBounds(bounds, _cellSize);
+		_entries.put(item, entry);
+		addToCells(entry);
+	}
+
+	/**
+	 * Updates the bounding box of an already indexed item.
+	 * Does nothing if the item isn't indexed.
+	 *
+	 * @param item		indexed item
+	 * @param bounds	new bounding box of the item
+	 */
+	public void update(T item, Rectangle bounds)
+	{
+		Entry<T> entry = _entries.get(item);
+		if (entry == null)
+			return;
+
+		int cx0 = entry.cellMinX, cy0 = entry.cellMinY, cx1 = entry.cellMaxX, cy1 = entry.cellMaxY;
+		entry.setBounds(bounds, _cellSize);
+		// only touch the grid if the item changed its cells
+		if (cx0 != entry.cellMinX || cy0 != entry.cellMinY || cx1 != entry.cellMaxX || cy1 != entry.cellMaxY)
+		{
+			removeFromCells(entry, cx0, cy0, cx1, cy1);
+			addToCells(entry);
+		}
+	}
+
+	/**
+	 * Removes an item from the index
+	 *
+	 * @param item item to be removed
+	 */
+	public void remove(T item)
+	{
+		Entry<T> entry = _entries.remove(item);
+		if (entry != null)
+		{
+			removeFromCells(entry, entry.cellMinX, entry.cellMinY, entry.cellMaxX, entry.cellMaxY);
+		}
+	}
+
+	/**
+	 * Checks if an item is indexed
+	 *
+	 * @param item item to be checked
+	 * @return true if indexed, else false
+	 */
+	public boolean contains(T item)
+	{
+		return _entries.containsKey(item);
+	}
+
+	/**
+	 * Returns the bounding box an item is indexed with
+	 *
+	 * @param item indexed item
+	 * @return bounding box of the item, null if it isn't indexed
+	 */
+	public Rectangle getBounds(T item)
+	{
+		Entry<T> entry = _entries.get(item);
+		if (entry == null)
+			return null;
+		return new Rectangle(entry.minX, entry.minY, entry.maxX - entry.minX, entry.maxY - entry.minY);
+	}
+
+	/**
+	 * Removes all items from the index
+	 */
+	public void clear()
+	{
+		_entries.clear();
+		_cells.clear();
+	}
+
+	/**
+	 * @return number of indexed items
+	 */
+	public int size()
+	{
+		return _entries.size();
+	}
+
+	/**
+	 * Returns all items whose bounding box contains the point (x, y)
+	 *
+	 * @param x x-coordinate of the point
+	 * @param y y-coordinate of the point
+	 * @return List of items in insertion order, empty if none found
+	 */
+	public ArrayList<T> query(int x, int y)
+	{
+		ArrayList<Entry<T>> found = new ArrayList<Entry<T>>();
+		ArrayList<Entry<T>> cell = _cells.get(key(cell(x), cell(y)));
+		if (cell != null)
+		{
+			for (Entry<T> entry : cell)
+			{
+				if (entry.contains(x, y))
+					found.add(entry);
+			}
+		}
+		return toItems(found);
+	}
+
+	/**
+	 * Returns all items whose bounding box intersects the designated rectangle
+	 *
+	 * @param x			x-coordinate of the rectangle
+	 * @param y			y-coordinate of the rectangle
+	 * @param width		width of the rectangle
+	 * @param height	height of the rectangle
+	 * @return List of items in insertion order, empty if none found
+	 */
+	public ArrayList<T> query(int x, int y, int width, int height)
+	{
+		ArrayList<Entry<T>> found = new ArrayList<Entry<T>>();
+		int maxX = x + Math.max(width, 0);
+		int maxY = y + Math.max(height, 0);
+		int cx0 = cell(x), cy0 = cell(y), cx1 = cell(maxX), cy1 = cell(maxY);
+
+		// a huge query rectangle would touch more (mostly empty) cells than there are items
+		long cellCount = ((long)cx1 - cx0 + 1) * ((long)cy1 - cy0 + 1);
+		if (cellCount > _entries.size())
+		{
+			for (Entry<T> entry : _entries.values())
+			{
+				if (entry.intersects(x, y, maxX, maxY))
+					found.add(entry);
+			}
+			return toItems(found);
+		}
+
+		for (int cx = cx0; cx <= cx1; cx++)
+		{
+			for (int cy = cy0; cy <= cy1; cy++)
+			{
+				ArrayList<Entry<T>> cell = _cells.get(key(cx, cy));
+				if (cell == null)
+					continue;
+				for (Entry<T> entry : cell)
+				{
+					// an item spanning several cells is only reported by the first
+					// cell it shares with the query rectangle
+					if (cx == Math.max(cx0, entry.cellMinX) && cy == Math.max(cy0, entry.cellMinY)
+							&& entry.intersects(x, y, maxX, maxY))
+						found.add(entry);
+				}
+			}
+		}
+		return toItems(found);
+	}
+
+	/**
+	 * Sorts the entries by insertion order and extracts the items
+	 */
+	private ArrayList<T> toItems(ArrayList<Entry<T>> found)
+	{
+		if (found.size() > 1)
+			Collections.sort(found, _orderComparator);
+		ArrayList<T> result = new ArrayList<T>(found.size());
+		for (Entry<T> entry : found)
+		{
+			result.add(entry.item);
+		}
+		return result;
+	}
+
+	private void addToCells(Entry<T> entry)
+	{
+		for (int cx = entry.cellMinX; cx <= entry.cellMaxX; cx++)
+		{
+			for (int cy = entry.cellMinY; cy <= entry.cellMaxY; cy++)
+			{
+				Long key = key(cx, cy);
+				ArrayList<Entry<T>> cell = _cells.get(key);
+				if (cell == null)
+				{
+					cell = new ArrayList<Entry<T>>(4);
+					_cells.put(key, cell);
+				}
+				cell.add(entry);
+			}
+		}
+	}
+
+	private void removeFromCells(Entry<T> entry, int cx0, int cy0, int cx1, int cy1)
+	{
+		for (int cx = cx0; cx <= cx1; cx++)
+		{
+			for (int cy = cy0; cy <= cy1; cy++)
+			{
+				Long key = key(cx, cy);
+				ArrayList<Entry<T>> cell = _cells.get(key);
+				if (cell == null)
+					continue;
+				// swap with last element, order inside a cell doesn't matter
+				int i = cell.indexOf(entry);
+				if (i >= 0)
+				{
+					int last = cell.size() - 1;
+					cell.set(i, cell.get(last));
+					cell.remove(last);
+				}
+				if (cell.isEmpty())
+					_cells.remove(key);
+			}
+		}
+	}
+
+	private int cell(int coordinate)
+	{
+		return Math.floorDiv(coordinate, _cellSize);
+	}
+
+	private static Long key(int cx, int cy)
+	{
+		return Long.valueOf(((long)cx << 32) | (cy & 0xffffffffL));
+	}
+
+	/**
+	 * Constructs new SpatialIndex
+	 * @param cellSize edge length of a grid cell
+	 */
+	public SpatialIndex(int cellSize)
+	{
+		_cellSize = Math.max(1, cellSize);
+		_entries = new IdentityHashMap<T, Entry<T>>();
+		_cells = new HashMap<Long, ArrayList<Entry<T>>>();
+		_orderComparator = new Comparator<Entry<T>>()
+		{
+			@Override
+			public int compare(Entry<T> e1, Entry<T> e2)
+			{
+				return Long.compare(e1.order, e2.order);
+			}
+		};
+	}
+
+	/**
+	 * Bookkeeping for an indexed item: its bounding box (inclusive) and
+	 * the range of cells it is registered in
+	 */
+	private static final class Entry<T>
+	{
+		final T item;
+		final long order;
+		int minX, minY, maxX, maxY;
+		int cellMinX, cellMinY, cellMaxX, cellMaxY;
+
+		void setBounds(Rectangle bounds, int cellSize)
+		{
+			minX = bounds.x;
+			minY = bounds.y;
+			maxX = bounds.x + Math.max(bounds.width, 0);
+			maxY = bounds.y + Math.max(bounds.height, 0);
+			cellMinX = Math.floorDiv(minX, cellSize);
+			cellMinY = Math.floorDiv(minY, cellSize);
+			cellMaxX = Math.floorDiv(maxX, cellSize);
+			cellMaxY = Math.floorDiv(maxY, cellSize);
+		}
+
+		boolean contains(int x, int y)
+		{
+			return x >= minX && x <= maxX && y >= minY && y <= maxY;
+		}
+
+		boolean intersects(int x0, int y0, int x1, int y1)
+		{
+			return x0 <= maxX && x1 >= minX && y0 <= maxY && y1 >= minY;
+		}
+
+		Entry(T item, long order)
+		{
+			this.item = item;
+			this.order = order;
+		}
+	}
+
+	private final int _cellSize;
+	private final IdentityHashMap<T, Entry<T>> _entries;
+	private final HashMap<Long, ArrayList<Entry<T>>> _cells;
+	private final Comparator<Entry<T>> _orderComparator;
+	private long _nextOrder;
+}
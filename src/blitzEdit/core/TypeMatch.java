@@ -0,0 +1,21 @@
+package blitzEdit.core;
+
+/**
+ * Used for choosing how {@link Circuit#getElementsByType(String, TypeMatch)}
+ * compares the typename of a {@link Component} with the requested one.
+ */
+public enum TypeMatch
+{
+	/**
+	 * Typename has to be equal to the requested one
+	 */
+	EXACT,
+	/**
+	 * Requested typename is a regular expression, see {@link String#matches(String)}
+	 */
+	REGEX,
+	/**
+	 * Requested typename is a glob pattern, * matches any sequence and ? any single character
+	 */
+	GLOB
+}
@@ -0,0 +1,472 @@
+package blitzEdit.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import blitzEdit.core.BlueprintContainer;
+import blitzEdit.core.Circuit;
+import blitzEdit.core.Component;
+import blitzEdit.core.ComponentBlueprint;
+import blitzEdit.core.Connector;
+import blitzEdit.core.Element;
+import tools.FileTools;
+import tools.FlightEvents;
+
+/**
+ * Parser that uses a compact binary format to save and load circuits.
+ * Stores the same information as {@link XMLParser}.
+ *
+ * Layout, all numbers as varints (negative ones zigzag encoded):
+ * <ul>
+ * <li>header: magic bytes, version, flags, CRC32 of the rest of the file</li>
+ * <li>string table with the component types</li>
+ * <li>components: type index, position relative to the previous component, rotation and
+ * their connectors with position relative to the component, rotation and relative position</li>
+ * <li>adjacency: for every connector the offsets to the connectors with a higher id it is connected to</li>
+ * </ul>
+ * Connectors are numbered in the order they are stored.
+ */
+public class BinaryParser implements IParser
+{
+	/**
+	 * File extension of binary circuits
+	 */
+	public static final String EXTENSION = "bec";
+
+	static final byte[] MAGIC = { (byte) 0x89, 'B', 'E', 'C' };
+
+	private static final int VERSION = 1;
+	private static final int FLAG_CHECKSUM = 1;
+	// magic, version, flags, checksum
+	private static final int HEADER_SIZE = MAGIC.length + 2 + 4;
+	private static final int CHECKSUM_POSITION = MAGIC.length + 2;
+	private static final int BUFFER_SIZE = 1 << 16;
+	// components read between two calls of LoadListener.progress()
+	private static final int PROGRESS_INTERVAL = 1024;
+
+	/**
+	 * Saves the circuit on disk. If useHashes is true a checksum of the content is stored.
+	 */
+	@Override
+	public void saveCircuit(Circuit circuit, String destination, boolean useHashes)
+	{
+		try
+		{
+			writeCircuit(circuit, destination, useHashes);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Saves the circuit on disk, the destination is only replaced if the circuit was written completely.
+	 */
+	@Override
+	public void writeCircuit(Circuit circuit, String destination, boolean useHashes) throws IOException
+	{
+		FlightEvents.CircuitSave event = new FlightEvents.CircuitSave();
+		event.begin();
+		FileTools.replaceFile(destination, path -> write(circuit, path, useHashes));
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.path = destination;
+			event.format = "binary";
+			event.elements = circuit.getElements().size();
+			event.bytes = new File(destination).length();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Loads a circuit from disk. Asks the user if a file with a mismatching checksum should be loaded.
+	 */
+	@Override
+	public void loadCircuit(Circuit circuit, String filePath)
+	{
+		loadCircuit(circuit, filePath, DialogLoadListener.INSTANCE);
+	}
+
+	/**
+	 * Loads a circuit from disk. The listener decides if a file with a mismatching checksum should be loaded.
+	 */
+	@Override
+	public boolean loadCircuit(Circuit circuit, String filePath, LoadListener listener)
+	{
+		FlightEvents.CircuitLoad event = new FlightEvents.CircuitLoad();
+		event.begin();
+		boolean loaded = read(circuit, filePath, listener);
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.path = filePath;
+			event.format = "binary";
+			event.elements = loaded ? circuit.getElements().size() : 0;
+			event.bytes = new File(filePath).length();
+			event.loaded = loaded;
+			event.commit();
+		}
+		return loaded;
+	}
+
+	private boolean read(Circuit circuit, String filePath, LoadListener listener)
+	{
+		try
+		{
+			// read into the heap instead of mapping the file, a mapping keeps the file
+			// locked on Windows until it is garbage collected, so it couldn't be saved again
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(Paths.get(filePath)));
+
+			readHeader(buffer);
+			int flags = buffer.get(MAGIC.length + 1);
+			if ((flags & FLAG_CHECKSUM) != 0 && buffer.getInt(CHECKSUM_POSITION) != checksum(buffer))
+			{
+				if (!listener.acceptModifications(filePath)) // declined loading with changes
+					return false;
+			}
+
+			buffer.position(HEADER_SIZE);
+			ArrayList<Element> elements = readElements(buffer, filePath, listener);
+			if (elements == null)
+				return false;
+			circuit.clearElements();
+			circuit.addElements(elements);
+			return true;
+		}
+		catch (IOException | BufferUnderflowException e)
+		{
+			listener.loadingFailed(filePath,
+					"Error occured while trying to read the Circuit from " + filePath + ".\n" + e.getLocalizedMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Checks if a file starts with the magic bytes of the binary format
+	 *
+	 * @param 	filePath	Contains filepath on disk
+	 * @return	boolean		True if the file is a binary circuit
+	 */
+	public static boolean isBinaryCircuit(String filePath)
+	{
+		try
+		{
+			FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+			try
+			{
+				ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+				while (magic.hasRemaining())
+				{
+					if (channel.read(magic) < 0)
+						return false;
+				}
+				return Arrays.equals(magic.array(), MAGIC);
+			}
+			finally
+			{
+				channel.close();
+			}
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+	}
+
+	private static void write(Circuit circuit, String destination, boolean useHashes) throws IOException
+	{
+		List<Element> elements = circuit.getElements();
+		ArrayList<Component> components = new ArrayList<Component>();
+		LinkedHashMap<String, Integer> types = new LinkedHashMap<String, Integer>();
+		IdentityHashMap<Connector, Integer> ids = new IdentityHashMap<Connector, Integer>();
+		ArrayList<Connector> connectors = new ArrayList<Connector>();
+		for (Element elem : elements)
+		{
+			if (elem.getClass() != Component.class)
+				continue;
+			Component comp = (Component) elem;
+			components.add(comp);
+			if (!types.containsKey(comp.getType()))
+				types.put(comp.getType(), types.size());
+			for (Connector conn : comp.getConnectors())
+			{
+				ids.put(conn, connectors.size());
+				connectors.add(conn);
+			}
+		}
+
+		FileChannel channel = FileChannel.open(Paths.get(destination), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.put(MAGIC).put((byte) VERSION).put((byte) (useHashes ? FLAG_CHECKSUM : 0)).putInt(0);
+			header.flip();
+			writeFully(channel, header);
+
+			Output out = new Output(channel);
+			out.writeVarInt(types.size());
+			for (String type : types.keySet())
+			{
+				out.writeString(type);
+			}
+
+			out.writeVarInt(components.size());
+			int lastX = 0, lastY = 0;
+			for (Component comp : components)
+			{
+				out.writeVarInt(types.get(comp.getType()));
+				out.writeSignedVarInt(comp.getX() - lastX);
+				out.writeSignedVarInt(comp.getY() - lastY);
+				out.writeSignedVarInt(comp.getRotation());
+				lastX = comp.getX();
+				lastY = comp.getY();
+
+				ArrayList<Connector> ports = comp.getConnectors();
+				out.writeVarInt(ports.size());
+				for (Connector conn : ports)
+				{
+					int[] relPos = conn.getRelPos();
+					out.writeSignedVarInt(conn.getX() - comp.getX());
+					out.writeSignedVarInt(conn.getY() - comp.getY());
+					out.writeSignedVarInt(conn.getRelativeRotation());
+					out.writeSignedVarInt(relPos[0]);
+					out.writeSignedVarInt(relPos[1]);
+				}
+			}
+
+			// every connection is stored once, by the connector with the lower id
+			for (int i = 0; i < connectors.size(); i++)
+			{
+				ArrayList<Connector> connections = connectors.get(i).getConnections();
+				int count = 0;
+				for (Connector c : connections)
+				{
+					Integer j = ids.get(c);
+					if (j != null && j > i)
+						count++;
+				}
+				out.writeVarInt(count);
+				for (Connector c : connections)
+				{
+					Integer j = ids.get(c);
+					if (j != null && j > i)
+						out.writeVarInt(j - i);
+				}
+			}
+			out.flush();
+
+			if (useHashes)
+			{
+				ByteBuffer checksum = ByteBuffer.allocate(4);
+				checksum.putInt((int) out.crc.getValue());
+				checksum.flip();
+				while (checksum.hasRemaining())
+				{
+					channel.write(checksum, CHECKSUM_POSITION + checksum.position());
+				}
+			}
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	private static void readHeader(ByteBuffer buffer) throws IOException
+	{
+		if (buffer.limit() < HEADER_SIZE)
+			throw new IOException("Not a binary circuit file.");
+		for (int i = 0; i < MAGIC.length; i++)
+		{
+			if (buffer.get(i) != MAGIC[i])
+				throw new IOException("Not a binary circuit file.");
+		}
+		int version = buffer.get(MAGIC.length);
+		if (version != VERSION)
+			throw new IOException("Unsupported file version " + version + ".");
+	}
+
+	/**
+	 * Reads string table, components, connectors and connections
+	 *
+	 * @return	ArrayList&lt;Element&gt;	Loaded elements, null if a blueprint is missing
+	 */
+	private static ArrayList<Element> readElements(ByteBuffer buffer, String filePath, LoadListener listener) throws IOException
+	{
+		int typeCount = readVarInt(buffer);
+		ComponentBlueprint[] blueprints = new ComponentBlueprint[typeCount];
+		for (int i = 0; i < typeCount; i++)
+		{
+			String type = readString(buffer);
+			blueprints[i] = BlueprintContainer.get().getBlueprint(type);
+			if (blueprints[i] == null)
+			{
+				listener.loadingFailed(filePath, "Missing blueprint component. Type: " + type);
+				System.err.println("Stopped loading process.");
+				return null;
+			}
+		}
+
+		int componentCount = readVarInt(buffer);
+		ArrayList<Element> elements = new ArrayList<Element>();
+		ArrayList<Connector> connectors = new ArrayList<Connector>();
+		int x = 0, y = 0;
+		for (int i = 0; i < componentCount; i++)
+		{
+			int type = readVarInt(buffer);
+			if (type < 0 || type >= typeCount)
+				throw new IOException("Corrupt circuit file: unknown type " + type + ".");
+			x += readSignedVarInt(buffer);
+			y += readSignedVarInt(buffer);
+			short rot = (short) readSignedVarInt(buffer);
+			Component comp = (Component) blueprints[type].createComponentWithoutConnectors(x, y, rot);
+
+			int portCount = readVarInt(buffer);
+			for (int j = 0; j < portCount; j++)
+			{
+				int connX = x + readSignedVarInt(buffer);
+				int connY = y + readSignedVarInt(buffer);
+				short connRot = (short) readSignedVarInt(buffer);
+				int[] relPos = { readSignedVarInt(buffer), readSignedVarInt(buffer) };
+				Connector conn = new Connector(connX, connY, relPos, connRot);
+				comp.addConnenctor(conn);
+				connectors.add(conn);
+				elements.add(conn);
+			}
+			elements.add(comp);
+			if ((i + 1) % PROGRESS_INTERVAL == 0)
+				listener.progress(i + 1, buffer.position(), buffer.limit());
+		}
+
+		for (int i = 0; i < connectors.size(); i++)
+		{
+			int count = readVarInt(buffer);
+			for (int k = 0; k < count; k++)
+			{
+				long j = (long) i + readVarInt(buffer);
+				if (j <= i || j >= connectors.size())
+					throw new IOException("Corrupt circuit file: unknown connector " + j + ".");
+				connectors.get(i).connect(connectors.get((int) j));
+			}
+		}
+		listener.progress(componentCount, buffer.position(), buffer.limit());
+		return elements;
+	}
+
+	private static int checksum(ByteBuffer buffer)
+	{
+		ByteBuffer content = buffer.duplicate();
+		content.position(HEADER_SIZE);
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		return (int) crc.getValue();
+	}
+
+	private static int readVarInt(ByteBuffer buffer) throws IOException
+	{
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7)
+		{
+			int b = buffer.get();
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Corrupt circuit file: malformed number.");
+	}
+
+	private static int readSignedVarInt(ByteBuffer buffer) throws IOException
+	{
+		int value = readVarInt(buffer);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static String readString(ByteBuffer buffer) throws IOException
+	{
+		int length = readVarInt(buffer);
+		if (length < 0 || length > buffer.remaining())
+			throw new IOException("Corrupt circuit file: invalid string length.");
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Buffered output to a FileChannel, computes the CRC32 of everything written
+	 */
+	private static final class Output
+	{
+		void writeByte(int b) throws IOException
+		{
+			if (!buffer.hasRemaining())
+				flush();
+			buffer.put((byte) b);
+		}
+
+		void writeVarInt(int value) throws IOException
+		{
+			while ((value & ~0x7f) != 0)
+			{
+				writeByte((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			writeByte(value);
+		}
+
+		void writeSignedVarInt(int value) throws IOException
+		{
+			writeVarInt((value << 1) ^ (value >> 31));
+		}
+
+		void writeString(String s) throws IOException
+		{
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(bytes.length);
+			for (byte b : bytes)
+			{
+				writeByte(b);
+			}
+		}
+
+		void flush() throws IOException
+		{
+			buffer.flip();
+			crc.update(buffer.duplicate());
+			writeFully(channel, buffer);
+			buffer.clear();
+		}
+
+		Output(FileChannel channel)
+		{
+			this.channel = channel;
+		}
+
+		final FileChannel channel;
+		final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		final CRC32 crc = new CRC32();
+	}
+}
@@ -0,0 +1,91 @@
+package blitzEdit.storage;
+
+import java.io.File;
+import java.io.IOException;
+
+import blitzEdit.core.BlueprintContainer;
+import blitzEdit.core.Circuit;
+
+/**
+ * Converts circuit files between the xml and the binary format.
+ * The format of the source is detected by its content, the format of the
+ * destination is chosen by its extension.
+ */
+public class CircuitConverter
+{
+	/**
+	 * Converts a circuit file. The blueprints of all used components have to be
+	 * loaded in the {@link BlueprintContainer}. Errors are printed to System.err,
+	 * modified sources are not converted. Nothing is written if the source couldn't be loaded.
+	 *
+	 * @param source		Contains filepath of the circuit to convert
+	 * @param destination	Contains filepath of the converted circuit
+	 * @param useHashes		If true uses hashes to ensure consistency
+	 * @return boolean		True if the circuit was converted
+	 */
+	public static boolean convert(String source, String destination, boolean useHashes)
+	{
+		Circuit circuit = new Circuit();
+		if (!CircuitFormat.detect(source).createParser().loadCircuit(circuit, source, CONSOLE))
+			return false;
+		try
+		{
+			CircuitFormat.fromExtension(destination).createParser().writeCircuit(circuit, destination, useHashes);
+		}
+		catch (IOException e)
+		{
+			System.err.println("Error occured while trying to write the Circuit to " + destination + ".\n" + e.getLocalizedMessage());
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Converts a circuit file from the command line.
+	 * Usage: CircuitConverter &lt;blueprint directory&gt; &lt;source&gt; &lt;destination&gt;
+	 *
+	 * @param args blueprint directory, source and destination
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length != 3)
+		{
+			System.err.println("Usage: CircuitConverter <blueprint directory> <source> <destination>");
+			return;
+		}
+
+		File[] blueprints = new File(args[0]).listFiles();
+		if (blueprints != null)
+		{
+			for (File file : blueprints)
+			{
+				if (file.getName().toLowerCase().endsWith(".xml"))
+					BlueprintContainer.get().addBlueprint(file);
+			}
+		}
+		if (!convert(args[1], args[2], true))
+			System.exit(1);
+	}
+
+	// reports to the console instead of dialogs, the converter may run headless
+	private static final LoadListener CONSOLE = new LoadListener()
+	{
+		@Override
+		public boolean acceptModifications(String filePath)
+		{
+			System.err.println(filePath + " has been modified, it is not converted.");
+			return false;
+		}
+
+		@Override
+		public void loadingFailed(String filePath, String message)
+		{
+			System.err.println(message);
+		}
+
+		@Override
+		public void progress(long records, long bytesRead, long bytesTotal)
+		{
+		}
+	};
+}
@@ -0,0 +1,72 @@
+package blitzEdit.storage;
+
+/**
+ * File formats for circuits and the {@link IParser} used for each of them.
+ */
+public enum CircuitFormat
+{
+	XML("xml"),
+	BINARY(BinaryParser.EXTENSION);
+
+	/**
+	 * @return file extension without leading dot
+	 */
+	public String getExtension()
+	{
+		return _extension;
+	}
+
+	/**
+	 * @return new parser for this format
+	 */
+	public IParser createParser()
+	{
+		if (this == BINARY)
+			return new BinaryParser();
+		return new XMLParser();
+	}
+
+	/**
+	 * Removes the extension of this format from a filename
+	 * @param 	filename	name of a file
+	 * @return	String		filename without extension
+	 */
+	public String removeExtension(String filename)
+	{
+		String suffix = "." + _extension;
+		if (filename.toLowerCase().endsWith(suffix))
+			return filename.substring(0, filename.length() - suffix.length());
+		return filename;
+	}
+
+	/**
+	 * Detects the format of an existing file by its content
+	 * @param 	filePath		Contains filepath on disk
+	 * @return	CircuitFormat	BINARY if the file starts with its magic bytes, else XML
+	 */
+	public static CircuitFormat detect(String filePath)
+	{
+		if (BinaryParser.isBinaryCircuit(filePath))
+			return BINARY;
+		return XML;
+	}
+
+	/**
+	 * Chooses the format for a new file by its extension
+	 * @param 	filePath		Contains filepath on disk
+	 * @return	CircuitFormat	BINARY for the binary extension, else XML
+	 */
+	public static CircuitFormat fromExtension(String filePath)
+	{
+		if (filePath.toLowerCase().endsWith("." + BinaryParser.EXTENSION))
+			return BINARY;
+		return XML;
+	}
+
+	private CircuitFormat(String extension)
+	{
+		_extension = extension;
+	}
+
+	private final String _extension;
+}
@@ -0,0 +1,36 @@
+package blitzEdit.storage;
+
+import javax.swing.JOptionPane;
+
+/**
+ * {@link LoadListener} asking the user with dialogs, used by
+ * {@link IParser#loadCircuit(blitzEdit.core.Circuit, String)}.
+ */
+final class DialogLoadListener implements LoadListener
+{
+	static final DialogLoadListener INSTANCE = new DialogLoadListener();
+
+	@Override
+	public boolean acceptModifications(String filePath)
+	{
+		int accepted = JOptionPane.showConfirmDialog(null,
+				"Modifications have been made in this file. Do you still want to load it?", "Loading Error",
+				JOptionPane.YES_NO_OPTION);
+		return accepted == 0;
+	}
+
+	@Override
+	public void loadingFailed(String filePath, String message)
+	{
+		JOptionPane.showMessageDialog(null, message, "Loading Error", JOptionPane.ERROR_MESSAGE);
+	}
+
+	@Override
+	public void progress(long records, long bytesRead, long bytesTotal)
+	{
+	}
+
+	private DialogLoadListener()
+	{
+	}
+}
@@ -1,5 +1,7 @@
 package blitzEdit.storage;
 
+import java.io.IOException;
+
 import blitzEdit.core.Circuit;
 
 /**
@@ -18,10 +20,33 @@ public interface IParser {
 	public void saveCircuit(Circuit circuit, String destination, boolean useHashes);
 	
 	/**
-	 * Used for loading a circuit from a filepath on the disk
+	 * Used for saving the circuit on disk. The destination is only replaced
+	 * if the circuit was written completely.
+	 * 
+	 * @param circuit		Circuit to save
+	 * @param destination	Destination on disk
+	 * @param useHashes		If true uses hashes to ensure consistency
+	 * @throws IOException	If the circuit couldn't be written, the old file is unchanged then
+	 */
+	public void writeCircuit(Circuit circuit, String destination, boolean useHashes) throws IOException;
+	
+	/**
+	 * Used for loading a circuit from a filepath on the disk.
+	 * Asks the user with dialogs if the file has been modified or can't be loaded.
 	 * 
 	 * @param circuit	Circuit used for loading
 	 * @param filePath	Contains direction of circuit on disk
 	 */
 	public void loadCircuit(Circuit circuit, String filePath);
+	
+	/**
+	 * Used for loading a circuit from a filepath on the disk without dialogs.
+	 * The circuit is only changed if loading succeeds.
+	 * 
+	 * @param circuit	Circuit used for loading
+	 * @param filePath	Contains direction of circuit on disk
+	 * @param listener	Decides about modified files, gets notified about errors and progress
+	 * @return true if the circuit was loaded
+	 */
+	public boolean loadCircuit(Circuit circuit, String filePath, LoadListener listener);
 }
@@ -0,0 +1,36 @@
+package blitzEdit.storage;
+
+/**
+ * Callback used by an {@link IParser} while loading a circuit. Replaces the dialogs
+ * of the parsers, so circuits can be loaded without blocking on user input,
+ * e.g. on a background thread.
+ *
+ * All methods are called on the thread loading the circuit.
+ */
+public interface LoadListener
+{
+	/**
+	 * Called if the hash stored in the file doesn't match its content
+	 *
+	 * @param 	filePath	Contains filepath on disk
+	 * @return	boolean		True if the circuit should be loaded anyway
+	 */
+	public boolean acceptModifications(String filePath);
+
+	/**
+	 * Called if the circuit couldn't be loaded
+	 *
+	 * @param filePath	Contains filepath on disk
+	 * @param message	Reason of the error
+	 */
+	public void loadingFailed(String filePath, String message);
+
+	/**
+	 * Called regularly while the file is read. May throw an unchecked exception to abort loading.
+	 *
+	 * @param records		Number of records read so far
+	 * @param bytesRead		Number of bytes read so far
+	 * @param bytesTotal	Size of the file
+	 */
+	public void progress(long records, long bytesRead, long bytesTotal);
+}
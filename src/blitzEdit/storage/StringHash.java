@@ -0,0 +1,56 @@
+package blitzEdit.storage;
+
+/**
+ * Computes the same value as {@link String#hashCode()} for the concatenation of all
+ * appended characters, without building that string. Used for the hashes
+ * stored in circuit files.
+ */
+final class StringHash
+{
+	/**
+	 * Appends all characters of a CharSequence
+	 * @param 	s		characters to append
+	 * @return	StringHash	reference to this
+	 */
+	public StringHash append(CharSequence s)
+	{
+		int h = _hash;
+		for (int i = 0; i < s.length(); i++)
+		{
+			h = 31 * h + s.charAt(i);
+		}
+		_hash = h;
+		return this;
+	}
+
+	/**
+	 * Appends a single character
+	 * @param 	c		character to append
+	 * @return	StringHash	reference to this
+	 */
+	public StringHash append(char c)
+	{
+		_hash = 31 * _hash + c;
+		return this;
+	}
+
+	/**
+	 * @return hash of all characters appended since construction or the last reset
+	 */
+	public int get()
+	{
+		return _hash;
+	}
+
+	/**
+	 * Resets the hash to the one of an empty string
+	 * @return	StringHash	reference to this
+	 */
+	public StringHash reset()
+	{
+		_hash = 0;
+		return this;
+	}
+
+	private int _hash;
+}
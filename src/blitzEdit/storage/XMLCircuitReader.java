@@ -0,0 +1,436 @@
+package blitzEdit.storage;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import blitzEdit.core.BlueprintContainer;
+import blitzEdit.core.Component;
+import blitzEdit.core.ComponentBlueprint;
+import blitzEdit.core.Connector;
+import blitzEdit.core.Element;
+
+/**
+ * Reads the circuit format written by {@link XMLParser} in a single streaming pass.
+ * Components and connectors are created while reading, children and connections
+ * are only stored as ids and linked by {@link #createElements()}, so apart from the
+ * created elements the memory used doesn't depend on the size of the file.
+ *
+ * The reader doesn't show any dialogs. Hash mismatches and missing blueprints are
+ * collected and have to be checked by the caller before calling {@link #createElements()}.
+ */
+final class XMLCircuitReader
+{
+	/**
+	 * Reads a circuit file
+	 *
+	 * @param 	filepath			Contains filepath on disk
+	 * @param 	listener			Gets notified about the progress
+	 * @throws 	IOException			if the file can't be read
+	 * @throws 	XMLStreamException	if the file isn't a valid circuit file
+	 */
+	public void read(String filepath, LoadListener listener) throws IOException, XMLStreamException
+	{
+		long size = new File(filepath).length();
+		CountingInputStream counter = new CountingInputStream(new FileInputStream(filepath));
+		InputStream in = new BufferedInputStream(counter, BUFFER_SIZE);
+		try
+		{
+			XMLStreamReader xml = createFactory().createXMLStreamReader(in);
+			try
+			{
+				int nextProgress = PROGRESS_INTERVAL;
+				while (xml.hasNext())
+				{
+					int event = xml.next();
+					if (event == XMLStreamConstants.START_ELEMENT)
+						startElement(xml);
+					else if (event == XMLStreamConstants.END_ELEMENT)
+						endElement(xml.getLocalName());
+					if (_recordCount >= nextProgress)
+					{
+						listener.progress(_recordCount, counter.count, size);
+						nextProgress = _recordCount + PROGRESS_INTERVAL;
+					}
+				}
+				listener.progress(_recordCount, counter.count, size);
+			}
+			finally
+			{
+				xml.close();
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * @return true if the file contained a circuithash
+	 */
+	public boolean hasCircuitHash()
+	{
+		return _storedCircuitHash != null;
+	}
+
+	/**
+	 * @return true if the file didn't contain a circuithash or it matches the content
+	 */
+	public boolean isCircuitHashValid()
+	{
+		if (_storedCircuitHash == null)
+			return true;
+		try
+		{
+			return Integer.parseInt(_storedCircuitHash) == _circuitHash.get();
+		}
+		catch (NumberFormatException e)
+		{
+			System.err.println("Changes to the hash code have been made. " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Returns all records whose hash doesn't match their content
+	 * @return List of records, hash attribute and quotes removed
+	 */
+	public List<String> getChangedRecords()
+	{
+		return _changedRecords;
+	}
+
+	/**
+	 * Returns the type of the first component without a blueprint
+	 * @return typename, null if all blueprints are available
+	 */
+	public String getMissingBlueprint()
+	{
+		return _missingBlueprint;
+	}
+
+	/**
+	 * @return number of records read so far
+	 */
+	public int getRecordCount()
+	{
+		return _recordCount;
+	}
+
+	/**
+	 * Adds the connectors to their components, connects them and removes connectors without owner.
+	 *
+	 * @return	ArrayList&lt;Element&gt;	Loaded elements, null if the file referenced missing elements
+	 */
+	public ArrayList<Element> createElements()
+	{
+		for (int[] child : _children)
+		{
+			Element owner = get(child[0]);
+			if (!(owner instanceof Component))
+			{
+				System.err.println("Error in file: Component " + child[0] + " doesn't exist.");
+				return null;
+			}
+			for (int i = 1; i < child.length; i++)
+			{
+				Element conn = get(child[i]);
+				if (!(conn instanceof Connector))
+				{
+					System.err.println("Error in file: Connector " + child[i] + " doesn't exist.");
+					return null;
+				}
+				((Component)owner).addConnenctor((Connector)conn);
+			}
+		}
+
+		for (int i = 0; i < _connectionCount; i += 2)
+		{
+			Element conn1 = get(_connections[i]);
+			Element conn2 = get(_connections[i + 1]);
+			if (!(conn1 instanceof Connector) || !(conn2 instanceof Connector))
+			{
+				System.err.println("Error in generating connections between connectors: Tried to access "
+						+ _connections[i] + " and " + _connections[i + 1]);
+				return null;
+			}
+			((Connector)conn1).connect((Connector)conn2);
+		}
+
+		// check for connectors without owner
+		ArrayList<Element> result = new ArrayList<Element>(_elements.size());
+		for (int i = 0; i < _elements.size(); i++)
+		{
+			Element e = _elements.get(i);
+			if (e == null)
+				continue;
+			if (e.getClass() == Connector.class && ((Connector)e).getOwner() == null)
+			{
+				System.err.println("Error in file: Connector " + i + " has no owner.");
+				continue;
+			}
+			result.add(e);
+		}
+		return result;
+	}
+
+	private void startElement(XMLStreamReader xml) throws XMLStreamException
+	{
+		String name = xml.getLocalName();
+		if (name.equals("Circuit"))
+			return;
+		if (name.equals("circuithash"))
+		{
+			_storedCircuitHash = xml.getAttributeValue(null, "hash");
+			return;
+		}
+
+		readRecord(xml, name.equals("component") || name.equals("connector"));
+		if (name.equals("component"))
+			readComponent(xml);
+		else if (name.equals("connector"))
+			readConnector(xml);
+		else if (name.equals("child"))
+			readChild(xml);
+		else if (name.equals("connection"))
+			readConnection(xml);
+	}
+
+	private void endElement(String name)
+	{
+		if (name.equals("component") || name.equals("connector"))
+			_circuitHash.append('/').append(name).append('>');
+	}
+
+	/**
+	 * Feeds a record into the circuit hash and checks its own hash.
+	 * The circuit hash covers the records as written by {@link XMLParser}, without
+	 * brackets, line breaks and tabs. The record hash covers the record without quotes
+	 * and without its hash attribute.
+	 *
+	 * @param xml		reader positioned on the start of the record
+	 * @param container	true if the record has an end tag
+	 */
+	private void readRecord(XMLStreamReader xml, boolean container)
+	{
+		String name = xml.getLocalName();
+		String hash = null;
+		_recordCount++;
+		_record.setLength(0);
+		_record.append(name);
+		_circuitHash.append(name);
+		for (int i = 0; i < xml.getAttributeCount(); i++)
+		{
+			String key = xml.getAttributeLocalName(i);
+			String value = xml.getAttributeValue(i);
+			_circuitHash.append(' ').append(key).append("=\"").append(value).append('"');
+			if (key.equals("hash"))
+			{
+				hash = value;
+				continue;
+			}
+			_record.append(' ').append(key).append('=').append(value);
+		}
+		if (container)
+			_circuitHash.append('>');
+
+		if (hash != null && !checkHash(hash))
+			_changedRecords.add(_record.toString());
+	}
+
+	private boolean checkHash(String hash)
+	{
+		try
+		{
+			return Integer.parseInt(hash) == _recordHash.reset().append(_record).get();
+		}
+		catch (NumberFormatException e)
+		{
+			return false;
+		}
+	}
+
+	private void readComponent(XMLStreamReader xml) throws XMLStreamException
+	{
+		int id = intValue(xml, "id");
+		double x = doubleValue(xml, "x");
+		double y = doubleValue(xml, "y");
+		double rot = doubleValue(xml, "rot");
+		String type = xml.getAttributeValue(null, "type");
+
+		ComponentBlueprint bp = type != null ? BlueprintContainer.get().getBlueprint(type) : null;
+		if (bp == null)
+		{
+			if (_missingBlueprint == null)
+				_missingBlueprint = type;
+			return;
+		}
+		set(id, bp.createComponentWithoutConnectors((int) x, (int) y, (short) rot), xml);
+	}
+
+	private void readConnector(XMLStreamReader xml) throws XMLStreamException
+	{
+		int id = intValue(xml, "id");
+		double x = doubleValue(xml, "x");
+		double y = doubleValue(xml, "y");
+		double rot = doubleValue(xml, "rot");
+		int[] relPos = { intValue(xml, "relX"), intValue(xml, "relY") };
+
+		set(id, new Connector((int) x, (int) y, relPos, (short) rot), xml);
+	}
+
+	private void readChild(XMLStreamReader xml) throws XMLStreamException
+	{
+		String conn = xml.getAttributeValue(null, "conn");
+		String[] ids = conn != null ? conn.split(";") : new String[0];
+		int[] child = new int[ids.length + 1];
+		child[0] = (int) doubleValue(xml, "comp");
+		int n = 1;
+		for (String id : ids)
+		{
+			if (!id.isEmpty())
+				child[n++] = parseInt(id, xml);
+		}
+		_children.add(n == child.length ? child : Arrays.copyOf(child, n));
+	}
+
+	private void readConnection(XMLStreamReader xml) throws XMLStreamException
+	{
+		if (_connectionCount + 2 > _connections.length)
+			_connections = Arrays.copyOf(_connections, _connections.length * 2);
+		_connections[_connectionCount++] = (int) doubleValue(xml, "conn1");
+		_connections[_connectionCount++] = (int) doubleValue(xml, "conn2");
+	}
+
+	/**
+	 * Stores an element at its id, the ids are the positions in the element list of the saved circuit
+	 */
+	private void set(int id, Element elem, XMLStreamReader xml) throws XMLStreamException
+	{
+		if (id < 0)
+			throw new XMLStreamException("Invalid id " + id, xml.getLocation());
+		while (_elements.size() <= id)
+		{
+			_elements.add(null);
+		}
+		_elements.set(id, elem);
+	}
+
+	private Element get(int id)
+	{
+		if (id < 0 || id >= _elements.size())
+			return null;
+		return _elements.get(id);
+	}
+
+	private static int intValue(XMLStreamReader xml, String name) throws XMLStreamException
+	{
+		String value = xml.getAttributeValue(null, name);
+		return value == null ? 0 : parseInt(value, xml);
+	}
+
+	private static double doubleValue(XMLStreamReader xml, String name) throws XMLStreamException
+	{
+		String value = xml.getAttributeValue(null, name);
+		if (value == null)
+			return 0;
+		try
+		{
+			return Double.parseDouble(value);
+		}
+		catch (NumberFormatException e)
+		{
+			throw new XMLStreamException("Invalid number " + value, xml.getLocation(), e);
+		}
+	}
+
+	private static int parseInt(String value, XMLStreamReader xml) throws XMLStreamException
+	{
+		try
+		{
+			return Integer.parseInt(value.trim());
+		}
+		catch (NumberFormatException e)
+		{
+			throw new XMLStreamException("Invalid number " + value, xml.getLocation(), e);
+		}
+	}
+
+	private static XMLInputFactory createFactory()
+	{
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		return factory;
+	}
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	// records read between two calls of LoadListener.progress()
+	private static final int PROGRESS_INTERVAL = 1024;
+
+	/**
+	 * Counts the bytes read from the file
+	 */
+	private static final class CountingInputStream extends FilterInputStream
+	{
+		@Override
+		public int read() throws IOException
+		{
+			int b = super.read();
+			if (b >= 0)
+				count++;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			int n = super.read(b, off, len);
+			if (n > 0)
+				count += n;
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException
+		{
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		CountingInputStream(InputStream in)
+		{
+			super(in);
+		}
+
+		long count;
+	}
+
+	private final ArrayList<Element> _elements = new ArrayList<Element>();
+	// child records: component id followed by the connector ids
+	private final ArrayList<int[]> _children = new ArrayList<int[]>();
+	// connection records: pairs of connector ids
+	private int[] _connections = new int[64];
+	private int _connectionCount;
+
+	private final StringBuilder _record = new StringBuilder();
+	private final StringHash _recordHash = new StringHash();
+	private final StringHash _circuitHash = new StringHash();
+	private String _storedCircuitHash;
+	private final ArrayList<String> _changedRecords = new ArrayList<String>();
+	private String _missingBlueprint;
+	private int _recordCount;
+}
@@ -0,0 +1,234 @@
+package blitzEdit.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import blitzEdit.core.Circuit;
+import blitzEdit.core.Component;
+import blitzEdit.core.Connector;
+import blitzEdit.core.Element;
+
+/**
+ * Writes a circuit in the format read by {@link XMLCircuitReader}. The records are
+ * streamed to the file, the ids of the elements are computed once up front.
+ *
+ * The circuithash has to be written before the records it covers, so the records
+ * are generated twice: first only to compute the circuithash, then to write them.
+ */
+final class XMLCircuitWriter
+{
+	/**
+	 * Writes the circuit to a file, replacing its content
+	 *
+	 * @param 	destination		Destination on disk
+	 * @throws 	IOException		if the file can't be written
+	 */
+	public void write(String destination) throws IOException
+	{
+		String circuitHash = null;
+		if (_useHashes)
+		{
+			CircuitHashFilter filter = new CircuitHashFilter();
+			writeRecords(filter);
+			circuitHash = Integer.toString(filter.get());
+		}
+
+		FileChannel channel = FileChannel.open(Paths.get(destination), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1), BUFFER_SIZE);
+		try
+		{
+			out.write(XMLParser.xmlTag);
+			out.write("\n<Circuit>\n");
+			if (circuitHash != null)
+			{
+				out.write("\t<circuithash hash=\"" + circuitHash + "\"/>\n");
+			}
+			writeRecords(out);
+			out.write("</Circuit>");
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the records of all components, their children, connectors and connections
+	 */
+	private void writeRecords(Appendable out) throws IOException
+	{
+		for (int i = 0; i < _elements.size(); i++)
+		{
+			Element elem = _elements.get(i);
+			if (elem.getClass() != Component.class)
+				continue;
+			Component comp = (Component) elem;
+
+			_record.setLength(0);
+			_record.append("component id=\"").append(i)
+					.append("\" x=\"").append(comp.getX())
+					.append("\" y=\"").append(comp.getY())
+					.append("\" rot=\"").append(comp.getRotation())
+					.append("\" type=\"").append(comp.getType());
+			writeRecord(out, "\t", ">\n");
+
+			ArrayList<Connector> connectors = comp.getConnectors();
+			_record.setLength(0);
+			_record.append("child comp=\"").append(i).append("\" conn=\"");
+			for (Connector conn : connectors)
+			{
+				_record.append(idOf(conn)).append(';');
+			}
+			writeRecord(out, "\t\t", "/>\n");
+
+			for (Connector conn : connectors)
+			{
+				int id = idOf(conn);
+				int[] relPos = conn.getRelPos();
+				_record.setLength(0);
+				_record.append("connector id=\"").append(id)
+						.append("\" x=\"").append(conn.getX())
+						.append("\" y=\"").append(conn.getY())
+						.append("\" rot=\"").append(conn.getRelativeRotation())
+						.append("\" relX=\"").append(relPos[0])
+						.append("\" relY=\"").append(relPos[1]);
+				writeRecord(out, "\t\t", ">\n");
+
+				for (Connector connected : conn.getConnections())
+				{
+					_record.setLength(0);
+					_record.append("connection conn1=\"").append(id)
+							.append("\" conn2=\"").append(idOf(connected));
+					writeRecord(out, "\t\t\t", "/>\n");
+				}
+				out.append("\t\t</connector>\n");
+			}
+			out.append("\t</component>\n");
+		}
+	}
+
+	/**
+	 * Writes the record in _record, adds its hash if hashes are activated
+	 *
+	 * @param out		destination
+	 * @param indent	tabs in front of the record
+	 * @param end		end of the tag
+	 */
+	private void writeRecord(Appendable out, String indent, String end) throws IOException
+	{
+		if (_useHashes)
+		{
+			_recordHash.reset();
+			for (int i = 0; i < _record.length(); i++)
+			{
+				char c = _record.charAt(i);
+				if (c != '"')
+					_recordHash.append(c);
+			}
+			_record.append("\" hash=\"").append(_recordHash.get());
+		}
+		out.append(indent).append('<').append(_record).append('"').append(end);
+	}
+
+	/**
+	 * Returns the id of an element, i.e. its position in the element list of the circuit
+	 * @return id, -1 if the element isn't part of the circuit
+	 */
+	private int idOf(Element elem)
+	{
+		Integer id = _ids.get(elem);
+		return id != null ? id.intValue() : -1;
+	}
+
+	/**
+	 * Receives the records and computes the circuithash over them the way
+	 * the file content is hashed: without "&lt;", "/&gt;", line breaks and tabs.
+	 */
+	private static final class CircuitHashFilter implements Appendable
+	{
+		@Override
+		public Appendable append(CharSequence csq)
+		{
+			for (int i = 0; i < csq.length(); i++)
+			{
+				append(csq.charAt(i));
+			}
+			return this;
+		}
+
+		@Override
+		public Appendable append(CharSequence csq, int start, int end)
+		{
+			return append(csq.subSequence(start, end));
+		}
+
+		@Override
+		public Appendable append(char c)
+		{
+			// "<" is removed before "/>", line breaks and tabs afterwards
+			if (c == '<')
+				return this;
+			if (_slash)
+			{
+				_slash = false;
+				if (c == '>')
+					return this;
+				_hash.append('/');
+			}
+			if (c == '/')
+				_slash = true;
+			else if (c != '\n' && c != '\t')
+				_hash.append(c);
+			return this;
+		}
+
+		int get()
+		{
+			if (_slash)
+			{
+				_slash = false;
+				_hash.append('/');
+			}
+			return _hash.get();
+		}
+
+		private final StringHash _hash = new StringHash();
+		// a "/" is only hashed once it is known not to start a "/>"
+		private boolean _slash;
+	}
+
+	/**
+	 * Constructs new XMLCircuitWriter
+	 *
+	 * @param circuit		Circuit to save
+	 * @param useHashes		If true adds hashes to ensure consistency
+	 */
+	public XMLCircuitWriter(Circuit circuit, boolean useHashes)
+	{
+		_elements = circuit.getElements();
+		_useHashes = useHashes;
+		_ids = new IdentityHashMap<Element, Integer>(_elements.size() * 2);
+		for (int i = 0; i < _elements.size(); i++)
+		{
+			_ids.put(_elements.get(i), i);
+		}
+	}
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final List<Element> _elements;
+	private final IdentityHashMap<Element, Integer> _ids;
+	private final boolean _useHashes;
+	private final StringBuilder _record = new StringBuilder();
+	private final StringHash _recordHash = new StringHash();
+}
@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.swing.JOptionPane;
+import javax.xml.stream.XMLStreamException;
 
 import blitzEdit.core.BlueprintContainer;
 import blitzEdit.core.Circuit;
@@ -21,6 +22,7 @@ import blitzEdit.core.ComponentProperty;
 import blitzEdit.core.Connector;
 import blitzEdit.core.Element;
 import tools.FileTools;
+import tools.FlightEvents;
 import tools.SvgRenderer;
 
 
@@ -31,207 +33,119 @@ import tools.SvgRenderer;
  */
 public class XMLParser implements IParser{
 	private Circuit currentCircuit = null;
-	private ArrayList<Element> elements = new ArrayList<Element>();
-	private boolean useHashes;
-	private boolean ignoreHashes;
 	
-	private static final String xmlTag = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+	static final String xmlTag = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
 	
 	public void saveCircuit (Circuit circuit, String destination, boolean useHashes) 
 	{
-		currentCircuit = circuit;
-		this.useHashes = useHashes;
-		
-		String circuitString = new String();
-		
-		// save elements in String
-		elements = new ArrayList<Element>(currentCircuit.getElements());
-		for(int i=0; i<elements.size();i++)
-		{
-			Element elem = elements.get(i);
-			if(elem.getClass() == Component.class)
-			{
-				Component comp = (Component) elem;
-				
-				circuitString += "\t" + saveComponent((Component)elem, i);
-				circuitString += "\t\t" + saveComponentChilds((Component)elem);
-				
-				ArrayList<Connector> connectors = comp.getConnectors();
-				for(Connector connector : connectors)
-				{
-					circuitString += "\t\t" + saveConnector(connector, elements.indexOf(connector));
-					if (connector.connected())
-					{
-						ArrayList<Connector> connections = connector.getConnections();
-						for (Connector connectedConn : connections)
-						{
-							circuitString += "\t\t\t" + saveConnection(connector, connectedConn);
-						}
-					}
-					circuitString += "\t\t" + "</connector>" + "\n";
-				}
-				circuitString += "\t" + "</component>" + "\n";
-			}
-		}
-		
-		String result = circuitString;
-		if(useHashes)
-		{
-			result = "\t" + createCircuitHash(result) + result;
-		}
-		result = xmlTag + "\n" + "<Circuit>\n" + result + "</Circuit>";
-			
-		
-		Path path = Paths.get(destination);
-		// safe string in file
 		try
 		{
-			FileOutputStream fos = new FileOutputStream(path.toString());
-			fos.write(result.getBytes());
-			fos.close();
+			writeCircuit(circuit, destination, useHashes);
 		}
 		catch (IOException e)
 		{
-			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
-
 	}
 	
-	public void loadCircuit (Circuit circuit, String filepath) 
+	public void writeCircuit (Circuit circuit, String destination, boolean useHashes) throws IOException
 	{
 		currentCircuit = circuit;
-	
-		String fileString = null;
-		try
-		{
-			fileString = FileTools.readFile(filepath, StandardCharsets.UTF_8);
-		}
-		catch (IOException e)
-		{
-			JOptionPane.showMessageDialog(null,
-					"Error occured while trying to read the Circuit from " + filepath, "Loading Error",
-					JOptionPane.CANCEL_OPTION);
-		}
-		
-		String originalFileString = fileString; // used for hash check
-		// remove unnecessary tokens
-		fileString = fileString.replace(xmlTag, "");
-		fileString = fileString.replace("</component>", "");
-		fileString = fileString.replace("</connector>", "");
-		fileString = fileString.replace("/>", "");
-		fileString = fileString.replace(">", "");
-		fileString = fileString.replace("\n", "");
-		fileString = fileString.replace("\t", "");
-		
-		String [] xmlElements = fileString.split("<");
-		
-		ArrayList<String> components = new ArrayList<String>();
-		ArrayList<String> connectors = new ArrayList<String>();
-		ArrayList<String> connections = new ArrayList<String>();
-		ArrayList<String> childs = new ArrayList<String>();
 		
-		for(String xml : xmlElements)
+		FlightEvents.CircuitSave event = new FlightEvents.CircuitSave();
+		event.begin();
+		XMLCircuitWriter writer = new XMLCircuitWriter(circuit, useHashes);
+		FileTools.replaceFile(destination, writer::write);
+		event.end();
+		if (event.shouldCommit())
 		{
-			xml = xml.replace("\"", "");
-			if(xml.startsWith("component"))
-			{
-				components.add(xml);
-			}
-			else if(xml.startsWith("connector"))
-			{
-				connectors.add(xml);
-			}
-			else if(xml.startsWith("connection"))
-			{
-				connections.add(xml);
-			}
-			else if(xml.startsWith("child"))
-			{
-				childs.add(xml);
-			}
-			else if(xml.startsWith("circuithash"))
-			{
-				String hash = xml.replace("circuithash hash=", "");
-				if (!checkCircuitHash(hash, originalFileString))
-				{
-					int accepted = JOptionPane.showConfirmDialog(null,
-							"Modifications have been made in this file. Do you still want to load it?", "Loading Error",
-							JOptionPane.YES_NO_OPTION);
-					if (accepted != 0) // declined loading with changes
-					{
-						return;
-					}
-					else // accepted loading with changes
-					{
-						ignoreHashes = true;
-					}
-				}
-			}
+			event.path = destination;
+			event.format = "xml";
+			event.elements = circuit.getElements().size();
+			event.bytes = new File(destination).length();
+			event.commit();
 		}
+	}
+	
+	public void loadCircuit (Circuit circuit, String filepath) 
+	{
+		loadCircuit(circuit, filepath, DialogLoadListener.INSTANCE);
+	}
+	
+	public boolean loadCircuit (Circuit circuit, String filepath, LoadListener listener) 
+	{
+		FlightEvents.CircuitLoad event = new FlightEvents.CircuitLoad();
+		event.begin();
+		boolean loaded = readCircuit(circuit, filepath, listener);
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.path = filepath;
+			event.format = "xml";
+			event.elements = loaded ? circuit.getElements().size() : 0;
+			event.bytes = new File(filepath).length();
+			event.loaded = loaded;
+			event.commit();
+		}
+		return loaded;
+	}
+	
+	private boolean readCircuit (Circuit circuit, String filepath, LoadListener listener) 
+	{
+		currentCircuit = circuit;
 		
-		// make sure elements array is large enough
-		for (int i = 0; i < components.size() + connectors.size(); i++)
+		XMLCircuitReader reader = new XMLCircuitReader();
+		try
 		{
-			elements.add(null);
+			reader.read(filepath, listener);
 		}
-		
-		for(String xml : components)
+		catch (IOException | XMLStreamException e)
 		{
-			if(!readComponent(xml))
-			{
-				System.err.println("Stopped loading process.");
-				return;
-			}
+			listener.loadingFailed(filepath,
+					"Error occured while trying to read the Circuit from " + filepath + ".\n" + e.getLocalizedMessage());
+			return false;
 		}
 		
-		for(String xml : connectors)
+		boolean ignoreHashes = false;
+		if (!reader.isCircuitHashValid())
 		{
-			if(!readConnector(xml))
+			if (!listener.acceptModifications(filepath)) // declined loading with changes
 			{
-				System.err.println("Stopped loading process.");
-				return;
+				return false;
 			}
-		}
-		
-		for(String xml : childs)
-		{
-			if(!addComponentChilds(xml))
+			else // accepted loading with changes
 			{
-				System.err.println("Stopped loading process.");
-				return;
+				ignoreHashes = true;
 			}
 		}
 		
-		for(String xml : connections)
+		if (!ignoreHashes && !reader.getChangedRecords().isEmpty())
 		{
-			if(!createConnection(xml))
+			for (String record : reader.getChangedRecords())
 			{
-				System.err.println("Stopped loading process.");
-				return;
+				System.err.println("Changes have been made in: " + record + ". The element wasn't created.");
 			}
+			System.err.println("Stopped loading process.");
+			return false;
 		}
-
-		// check for connectors without owner
-		ArrayList<Element> elemsToRemove = new ArrayList<Element>();
-		for (Element e : elements)
+		
+		if (reader.getMissingBlueprint() != null)
 		{
-			if (e.getClass() == Connector.class)
-			{
-				Connector c = (Connector) e;
-				if (c.getOwner() == null)
-				{
-					System.err.println("Error in file: Connector " + elements.indexOf(e) + " has no owner.");
-					elemsToRemove.add(e);
-				}
-			}
+			listener.loadingFailed(filepath, "Missing blueprint component. Type: " + reader.getMissingBlueprint());
+			System.err.println("Stopped loading process.");
+			return false;
 		}
 		
-		if(elemsToRemove.isEmpty() || elements.removeAll(elemsToRemove))
+		ArrayList<Element> loadedElements = reader.createElements();
+		if (loadedElements == null)
 		{
-			circuit.clearElements();
-			circuit.addElements(elements);
+			System.err.println("Stopped loading process.");
+			return false;
 		}
+		
+		circuit.clearElements();
+		circuit.addElements(loadedElements);
+		return true;
 	}
 	
 	/**
@@ -245,15 +159,9 @@ public class XMLParser implements IParser{
 	 */
 	public static ComponentBlueprint readBlueprint(String filepath)
 	{
-		String fileString;
-		File parent;
-		
 		try
 		{
-			File file = new File(filepath);
-			parent = file.getParentFile();
-			
-			fileString = FileTools.readFile(filepath, StandardCharsets.UTF_8);
+			return parseBlueprint(filepath);
 		}
 		catch (IOException e)
 		{
@@ -262,6 +170,20 @@ public class XMLParser implements IParser{
 					JOptionPane.CANCEL_OPTION);
 			return null;
 		}
+	}
+	
+	/**
+	 * Reads an xml file and creates a ComponentBlueprint like {@link #readBlueprint(String)},
+	 * but without displaying messages. Can be used on any thread.
+	 * 
+	 * @param 	filepath			Contains filepath on disk
+	 * @return	ComponentBlueprint	Created blueprint, null if the file doesn't describe a valid blueprint
+	 * @throws	IOException			If the file couldn't be read
+	 */
+	public static ComponentBlueprint parseBlueprint(String filepath) throws IOException
+	{
+		File parent = new File(filepath).getParentFile();
+		String fileString = FileTools.readFile(filepath, StandardCharsets.UTF_8);
 		
 		// remove unnecessary tokens
 		fileString = fileString.replace(xmlTag, "");
@@ -361,7 +283,7 @@ public class XMLParser implements IParser{
 				File file = new File(svgFilePath);
 				if(!file.exists())
 				{
-					file = new File(parentDirectory.toString() + "\\" + svgFilePath);
+					file = new File(parentDirectory, svgFilePath);
 					if(!file.exists())
 					{
 						return null;
@@ -434,460 +356,4 @@ public class XMLParser implements IParser{
 		
 		return new ComponentBlueprint(type, svgFilePath, relPos, relRot, width, height, propertyList);
 	}
-	
-	/**
-	 * Creates a component element out of the given xml string. Doesn't create connectors.
-	 * 
-	 * @param 	xml		Contains xml properties for the component
-	 * @return	boolean	True if succesfully created component and added to elements array
-	 */
-	private boolean readComponent (String xml) 
-	{
-		int id=0;
-		double x=0;
-		double y=0;
-		double rot=0;
-		String type = null;
-		String hash = null;
-		boolean hasHash = false;
-		
-		String[] rectElements = xml.split(" ");
-		for(String s : rectElements)
-		{		
-			s = s.trim();
-			if(s.contains("id="))
-			{
-				String[] sElem = s.split("=");
-				id = Integer.parseInt(sElem[1]);
-			}
-			if(s.contains("x="))
-			{
-				String[] sElem = s.split("=");
-				x = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("y="))
-			{
-				String[] sElem = s.split("=");
-				y = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("rot="))
-			{
-				String[] sElem = s.split("=");
-				rot = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("type="))
-			{
-				String[] sElem = s.split("=");
-				type = sElem[1];
-			}
-			else if(s.contains("hash="))
-			{
-				String[] sElem = s.split("=");
-				hash = sElem[1];
-				hasHash = true;
-			}
-			
-		}
-		
-		if (!hasHash || (hasHash && checkHash(hash, xml)))
-		{
-			ComponentBlueprint bp = BlueprintContainer.get().getBlueprint(type);
-			if (bp != null)
-			{
-				elements.set((int) id, bp.createComponentWithoutConnectors((int) x, (int) y, (short) rot));
-				return true;
-			}
-			else
-			{
-				JOptionPane.showMessageDialog(null,
-						"Missing blueprint component. Type: " + type, "Loading Error",
-						JOptionPane.ERROR_MESSAGE);
-				return false;
-			}
-		}
-		else
-		{
-			System.err.println("Changes have been made in the component: " + xml + ". The component wasn't created.");
-		}
-		return false;
-		
-	}
-	
-	/**
-	 * Creates a connector out of given xml string.
-	 * 
-	 * @param 	xml		Contains properties for connector
-	 * @return	boolean	True if succesfully created connector and added to elements array
-	 */
-	private boolean readConnector (String xml)
-	{
-		int id=0;
-		double x=0;
-		double y=0;
-		double rot=0;
-		int relX=0;
-		int relY=0;
-		String hash = null;
-		boolean hasHash = false;
-		
-		String[] rectElements = xml.split(" ");
-		for(String s : rectElements)
-		{		
-			s = s.trim();
-			if(s.contains("id="))
-			{
-				String[] sElem = s.split("=");
-				id = Integer.parseInt(sElem[1]);
-			}
-			else if(s.contains("x="))
-			{
-				String[] sElem = s.split("=");
-				x = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("y="))
-			{
-				String[] sElem = s.split("=");
-				y = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("rot="))
-			{
-				String[] sElem = s.split("=");
-				rot = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("relX="))
-			{
-				String[] sElem = s.split("=");
-				relX = Integer.parseInt(sElem[1]);
-			}
-			else if(s.contains("relY="))
-			{
-				String[] sElem = s.split("=");
-				relY = Integer.parseInt(sElem[1]);
-			}
-			else if(s.contains("hash="))
-			{
-				String[] sElem = s.split("=");
-				hash = sElem[1];
-				hasHash = true;
-			}
-		}
-		int[] relPos = { relX, relY };
-
-		if (!hasHash || (hasHash && checkHash(hash, xml)))
-		{
-			elements.set((int)id, new Connector((int) x, (int) y, relPos, (short) rot));
-			return true;
-		}
-		else
-		{
-			System.err.println("Changes have been made in the connector: " + xml + ". The connector wasn't created.");
-		}
-		return false;
-	}
-	
-	/**
-	 * Creates a conenction out of the given xml string.
-	 * 
-	 * @param 	xml		Contains IDs for the both connectors to connect	
-	 * @return	boolean	True if conenction between two connectors created
-	 */
-	private boolean createConnection(String xml)
-	{
-		double conn1=0;
-		double conn2=0;
-		String hash = null;
-		boolean hasHash = false;
-		
-		String[] rectElements = xml.split(" ");
-		for(String s : rectElements)
-		{		
-			s = s.trim();
-			if(s.contains("conn1="))
-			{
-				String[] sElem = s.split("=");
-				conn1 = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("conn2="))
-			{
-				String[] sElem = s.split("=");
-				conn2 = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("hash="))
-			{
-				String[] sElem = s.split("=");
-				hash = sElem[1];
-				hasHash = true;
-			}
-		}
-
-		if (!hasHash || (hasHash && checkHash(hash, xml)))
-		{
-			try
-			{
-				Connector connector1 = (Connector) elements.get((int) conn1);
-				Connector connector2 = (Connector) elements.get((int) conn2);
-
-				connector1.connect(connector2);
-				return true;
-			}
-			catch (IndexOutOfBoundsException e)
-			{
-				System.err.println(
-						"Error in generating connections between connectors: Tried to access " + e.getMessage());
-			}
-		}
-		else
-		{
-			System.err.println("Changes have been made in the connection: " + xml + ". The connection wasn't created.");
-		}
-		return false;
-	}
-	
-	/**
-	 * Sets the owner of a connector to the component given in the xml string.
-	 * 
-	 * @param 	xml		Contains xml properties for owner and connector id
-	 * @return	boolean	True if succesfully set the owner of the connector
-	 */
-	private boolean addComponentChilds(String xml)
-	{
-		double comp=0;
-		ArrayList<Integer> conn= new ArrayList<Integer>();
-		String hash = null;
-		boolean hasHash = false;
-		
-		String[] rectElements = xml.split(" ");
-		for(String s : rectElements)
-		{		
-			s = s.trim();
-			if(s.contains("comp="))
-			{
-				String[] sElem = s.split("=");
-				comp = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("conn="))
-			{
-				String[] sElem = s.split("=");
-				String[] sElem2 = sElem[1].split(";");
-				for(String connectorId : sElem2)
-				{
-					conn.add(Integer.parseInt(connectorId));
-				}
-			}
-			else if(s.contains("hash="))
-			{
-				String[] sElem = s.split("=");
-				hash = sElem[1];
-				hasHash = true;
-			}
-		}
-		
-		if (!hasHash || (hasHash && checkHash(hash, xml)))
-		{
-			if (!elements.isEmpty())
-			{
-				Component component = (Component) elements.get((int) comp);
-				for (int i : conn)
-				{
-					component.addConnenctor((Connector) elements.get(i));
-				}
-				return true;
-			}
-		}
-		else
-		{
-			System.err.println(
-					"Changes have been made in the child property: " + xml + ". The connectors weren't added.");
-		}
-		return false;
-	}
-	
-	/**
-	 * Creates a string with the properties of a component. Adds a hash if hashes are activated.
-	 * 
-	 * @param 	comp	Component to save
-	 * @param 	id		Position in the elements array
-	 * @return	String	Contains the properties as string
-	 */
-	private String saveComponent(Component comp, int id)
-	{
-		String result = "component id=\"" + id + 
-						"\" x=\"" + comp.getX() +
-						"\" y=\"" + comp.getY() +
-						"\" rot=\"" + comp.getRotation() +
-						"\" type=\"" + comp.getType();
-		
-		if(useHashes)
-		{
-			result += "\" hash=\"" + createHash(result);
-		}
-		result = "<" +result + "\">\n";
-		return result;
-	}
-	
-	/**
-	 * Creates a string with the properties of a connector. Adds a hash if hashes are activated.
-	 * 
-	 * @param 	conn	Connector to save
-	 * @param 	id		Position in the elements array
-	 * @return	String	Contains the properties as string
-	 */
-	private String saveConnector(Connector conn, int id)
-	{
-		int[] relPos = conn.getRelPos();
-		
-		String result = "connector id=\"" + id +
-						"\" x=\"" + conn.getX() +
-						"\" y=\"" + conn.getY() + 
-						"\" rot=\"" + conn.getRelativeRotation() +
-						"\" relX=\"" + relPos[0] +
-						"\" relY=\"" + relPos[1] ;
-		if(useHashes)
-		{
-			result += "\" hash=\"" + createHash(result);
-		}
-		result = "<" + result + "\">\n";
-		return result;
-	}
-	
-	/**
-	 * Creates a string with IDs (index in elements array) of the two connectors. 
-	 * Adds a hash if hashes are activated.
-	 * 
-	 * @param 	conn	1st connector
-	 * @param 	conn2	2nd connector
-	 * @return	String	Contains the connection as string
-	 */
-	private String saveConnection(Connector conn, Connector conn2)
-	{
-		String result = "connection conn1=\"" + elements.indexOf(conn) +
-						"\" conn2=\"" + elements.indexOf(conn2);
-		
-		if(useHashes)
-		{
-			result += "\" hash=\"" + createHash(result);
-		}
-		result = "<" + result + "\"/>\n";
-		return result;
-	}
-	
-	/**
-	 * Creates a string with the IDs of the component and its children. 
-	 * Adds a hash if hashes are activated.
-	 * 
-	 * @param 	comp	Component used for save
-	 * @return	String	Contains the component and its childs
-	 */
-	private String saveComponentChilds(Component comp)
-	{
-		String result;
-		ArrayList<Connector> connectors = comp.getConnectors();
-		
-		result = "child comp=\"" + elements.indexOf(comp) + 
-				 "\" conn=\"";
-		
-		for(Connector conn : connectors)
-		{
-			result += elements.indexOf(conn) + ";";
-		}
-		
-		if(useHashes)
-		{
-			result += "\" hash=\"" + createHash(result);
-		}
-		result = "<" + result + "\"/>\n";
-		return result;
-	}
-	
-	/**
-	 * If ignoreHash is false creates a hash with the given xml string without special characters and the hash.
-	 * Checks the created hash against the given hash string afterwards.
-	 * 
-	 * @param 	hash	Hash code of the xml string
-	 * @param 	xml		Xml string to check
-	 * @return	boolean	True if hash matches the created xml hash
-	 */
-	private boolean checkHash(String hash, String xml)
-	{
-		if (!ignoreHashes)
-		{
-			xml = xml.replace("<", "");
-			xml = xml.replace("/>", "");
-			xml = xml.trim();
-			xml = xml.replace("hash=", "");
-			xml = xml.replace(hash, "");
-			xml = xml.trim();
-
-			try
-			{
-				int hashInt = Integer.parseInt(hash);
-				int test = xml.hashCode();
-				return (xml.hashCode() == hashInt);
-			}
-			catch (NumberFormatException e)
-			{
-				System.err.println("Changes to the hash code have been made. " + e.getMessage());
-				return false;
-			}
-		}
-		else
-		{
-			return true;
-		}
-	}
-	
-	/**
-	 * Uses String.hashCode() to generate a hash code for the xml string.
-	 * @param 	xml		String to generate hash for
-	 * @return	String	Contains hash code
-	 */
-	private String createHash(String xml)
-	{
-		xml = xml.replace("\"", "");
-		return new String(Integer.toString(xml.hashCode()));
-	}
-	
-	/**
-	 * Deletes all special character and uses String.hashCode() afterwards.
-	 * Inserts the hash into a xml property &lt;circuithash hash=""\&gt; and returns the string.
-	 * @param 	xml		Xml used for saving
-	 * @return	String	Contains the xml property with the created hash
-	 */
-	private String createCircuitHash(String xml)
-	{
-		xml = xml.replace("<", "");
-		xml = xml.replace("/>", "");
-		xml = xml.replace("\n", "");
-		xml = xml.replace("\t", "");
-		
-		return new String("<circuithash hash=\"" + xml.hashCode() + "\"/>\n");
-	}
-	
-	/**
-	 * Removes all special characters, xmlTag and circuit xml tags and uses String.hashCode() afterwards.
-	 * Then checks the given hash against the created.
-	 * @param 	hash	Hash to check
-	 * @param 	xml		Xml containing the circuit
-	 * @return	boolean	True if hash matches
-	 */
-	private boolean checkCircuitHash(String hash, String xml)
-	{
-		xml = xml.replace(xmlTag, "");
-		xml = xml.replace("</Circuit>", "");
-		xml = xml.replace("<Circuit>", "");
-		xml = xml.replace("<", "");
-		xml = xml.replace("/>", "");
-		xml = xml.replace("circuithash hash=\"" + hash + "\"", "");
-		xml = xml.replace("\n", "");
-		xml = xml.replace("\t", "");
-		
-		try{
-			int hashInt = Integer.parseInt(hash);
-			return (xml.hashCode() == hashInt);
-		}catch (NumberFormatException e)
-		{
-			System.err.println("Changes to the hash code have been made. " + e.getMessage());
-			return false;
-		}
-	}
 }
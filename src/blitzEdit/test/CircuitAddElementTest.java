@@ -2,6 +2,7 @@ package blitzEdit.test;
 
 import blitzEdit.core.*;
 import java.util.ArrayList;
+import java.util.List;
 
 
 public class CircuitAddElementTest implements Runnable
@@ -32,7 +33,7 @@ public class CircuitAddElementTest implements Runnable
 		System.out.println("Content of circuit: ");
 		
 		int i = 0, j = 0;
-		ArrayList<Element> elems = circuit.getElements(); 
+		List<Element> elems = circuit.getElements(); 
 		for (Element e : elems)
 		{
 			if (e instanceof Component)
@@ -1,6 +1,7 @@
 package blitzEdit.test;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import blitzEdit.core.Circuit;
 import blitzEdit.core.Component;
@@ -34,7 +35,7 @@ public class CircuitCreateTest implements Runnable {
 		Circuit circuit3 = new Circuit(elements, "Schaltplan2");
 		System.out.println("circuit3.name = " + circuit3.getName() + "\n");
 		System.out.println("circuit3 contents:");
-		ArrayList<Element> elems = circuit3.getElements();
+		List<Element> elems = circuit3.getElements();
 		int i = 0, j = 0;
 		for (Element e : elems)
 		{
@@ -0,0 +1,338 @@
+package blitzEdit.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Random;
+
+import blitzEdit.core.BlueprintContainer;
+import blitzEdit.core.Circuit;
+import blitzEdit.core.Component;
+import blitzEdit.core.ComponentBlueprint;
+import blitzEdit.core.Connector;
+import blitzEdit.storage.CircuitFormat;
+import blitzEdit.storage.IParser;
+
+/**
+ * Generates large circuits from {@link ComponentBlueprint blueprints} for testing and benchmarking.
+ * The components are laid out on a grid, their types are chosen randomly from the blueprints.
+ * The same settings and seed always generate the same circuit.
+ */
+public class CircuitGenerator
+{
+	/**
+	 * Shapes of generated circuits
+	 */
+	public enum Shape
+	{
+		/**
+		 * Components in a snake shaped row, every component connected to the next one
+		 */
+		CHAIN,
+		/**
+		 * Ladder networks: a row of series components, each with a rung component
+		 * to the bottom rail. Long ladders are split into several connected ladders.
+		 */
+		LADDER,
+		/**
+		 * Grid of components, every component connected to its right and lower neighbour
+		 */
+		MESH,
+		/**
+		 * Components connected to random other components, see {@link CircuitGenerator#setDegree(double)}
+		 */
+		RANDOM
+	}
+
+	/**
+	 * Sets the shape of the circuit, default is {@link Shape#CHAIN}
+	 * @param shape shape of the circuit
+	 * @return reference to this
+	 */
+	public CircuitGenerator setShape(Shape shape)
+	{
+		_shape = shape;
+		return this;
+	}
+
+	/**
+	 * Sets the number of components, default is 1000
+	 * @param count number of components
+	 * @return reference to this
+	 */
+	public CircuitGenerator setComponentCount(int count)
+	{
+		_count = count;
+		return this;
+	}
+
+	/**
+	 * Sets the average number of connections per component of a {@link Shape#RANDOM} circuit, default is 2.
+	 * The other shapes have a fixed degree.
+	 * @param degree average number of connections per component
+	 * @return reference to this
+	 */
+	public CircuitGenerator setDegree(double degree)
+	{
+		_degree = degree;
+		return this;
+	}
+
+	/**
+	 * Sets the part of the components, which are rotated by 90, 180 or 270 degrees, default is 0
+	 * @param rotationMix part between 0 (no rotated components) and 1 (only rotated components)
+	 * @return reference to this
+	 */
+	public CircuitGenerator setRotationMix(double rotationMix)
+	{
+		_rotationMix = rotationMix;
+		return this;
+	}
+
+	/**
+	 * Sets the seed of the random types, rotations and connections, default is 0
+	 * @param seed seed
+	 * @return reference to this
+	 */
+	public CircuitGenerator setSeed(long seed)
+	{
+		_seed = seed;
+		return this;
+	}
+
+	/**
+	 * Sets the distance of the components on the grid, default is 300
+	 * @param spacing distance of the components
+	 * @return reference to this
+	 */
+	public CircuitGenerator setSpacing(int spacing)
+	{
+		_spacing = spacing;
+		return this;
+	}
+
+	/**
+	 * Generates a circuit with the current settings
+	 * @return generated {@link Circuit}
+	 */
+	public Circuit generate()
+	{
+		_random = new Random(_seed);
+		Circuit circuit = new Circuit(_shape.name().toLowerCase() + " " + _count);
+		switch (_shape)
+		{
+		case CHAIN:
+			generateChain(circuit);
+			break;
+		case LADDER:
+			generateLadder(circuit);
+			break;
+		case MESH:
+			generateMesh(circuit);
+			break;
+		case RANDOM:
+			generateRandom(circuit);
+			break;
+		}
+		return circuit;
+	}
+
+	/**
+	 * Generates a circuit with the current settings and saves it
+	 * @param parser		{@link IParser} used for saving
+	 * @param destination	Destination on disk
+	 * @param useHashes		If true uses hashes to ensure consistency
+	 * @return generated {@link Circuit}
+	 * @throws IOException if the circuit couldn't be written
+	 */
+	public Circuit generate(IParser parser, String destination, boolean useHashes) throws IOException
+	{
+		Circuit circuit = generate();
+		parser.writeCircuit(circuit, destination, useHashes);
+		return circuit;
+	}
+
+	private void generateChain(Circuit circuit)
+	{
+		int columns = columns(_count);
+		Component previous = null;
+		for (int i = 0; i < _count; i++)
+		{
+			int row = i / columns;
+			int column = i % columns;
+			// every second row runs backwards, so neighbours in the chain are neighbours on the grid
+			if (row % 2 == 1)
+				column = columns - 1 - column;
+			Component comp = addComponent(circuit, column, row);
+			if (previous != null)
+				connect(previous, -1, comp, 0);
+			previous = comp;
+		}
+	}
+
+	private void generateLadder(Circuit circuit)
+	{
+		int rungs = (_count + 1) / 2;
+		int length = columns(rungs);
+		Component series = null;
+		Component rung = null;
+		for (int i = 0; i < _count; i += 2)
+		{
+			int k = i / 2;
+			int column = k % length;
+			int row = 2 * (k / length);
+			Component nextSeries = addComponent(circuit, column, row);
+			// the ladders are connected by their series components
+			if (series != null)
+				connect(series, -1, nextSeries, 0);
+			series = nextSeries;
+
+			if (i + 1 < _count)
+			{
+				Component nextRung = addComponent(circuit, column, row + 1);
+				connect(series, -1, nextRung, 0);
+				// bottom rail
+				if (rung != null && column != 0)
+					connect(rung, -1, nextRung, -1);
+				rung = nextRung;
+			}
+		}
+	}
+
+	private void generateMesh(Circuit circuit)
+	{
+		int columns = columns(_count);
+		Component[] previousRow = new Component[columns];
+		for (int i = 0; i < _count; i++)
+		{
+			int column = i % columns;
+			Component comp = addComponent(circuit, column, i / columns);
+			if (column > 0)
+				connect(previousRow[column - 1], -1, comp, 0);
+			if (previousRow[column] != null)
+				connect(previousRow[column], 0, comp, -1);
+			previousRow[column] = comp;
+		}
+	}
+
+	private void generateRandom(Circuit circuit)
+	{
+		int columns = columns(_count);
+		Component[] components = new Component[_count];
+		for (int i = 0; i < _count; i++)
+		{
+			components[i] = addComponent(circuit, i % columns, i / columns);
+		}
+		if (_count < 2)
+			return;
+		// every connection adds to the degree of two components
+		long connections = Math.round(_count * _degree / 2);
+		for (long i = 0; i < connections; i++)
+		{
+			int a = _random.nextInt(_count);
+			int b = _random.nextInt(_count - 1);
+			if (b >= a)
+				b++;
+			connect(components[a], _random.nextInt(Integer.MAX_VALUE), components[b], _random.nextInt(Integer.MAX_VALUE));
+		}
+	}
+
+	/**
+	 * Adds a component with random type and rotation at a grid position
+	 */
+	private Component addComponent(Circuit circuit, int column, int row)
+	{
+		ComponentBlueprint blueprint = _blueprints.get(_random.nextInt(_blueprints.size()));
+		short rotation = 0;
+		if (_random.nextDouble() < _rotationMix)
+			rotation = (short) (90 * (1 + _random.nextInt(3)));
+		Component comp = (Component) blueprint.createComponent((column + 1) * _spacing, (row + 1) * _spacing, rotation);
+		circuit.addElement(comp);
+		return comp;
+	}
+
+	/**
+	 * Connects two components by their connectors.
+	 * The indices are taken modulo the number of connectors, -1 is the last connector.
+	 */
+	private static void connect(Component c1, int index1, Component c2, int index2)
+	{
+		Connector conn1 = connector(c1, index1);
+		Connector conn2 = connector(c2, index2);
+		if (conn1 != null && conn2 != null)
+			conn1.connect(conn2);
+	}
+
+	private static Connector connector(Component comp, int index)
+	{
+		ArrayList<Connector> connectors = comp.getConnectors();
+		if (connectors.isEmpty())
+			return null;
+		if (index < 0)
+			return connectors.get(connectors.size() - 1);
+		return connectors.get(index % connectors.size());
+	}
+
+	private static int columns(int count)
+	{
+		return Math.max(1, (int) Math.ceil(Math.sqrt(count)));
+	}
+
+	/**
+	 * Generates a circuit from the command line.
+	 * Usage: CircuitGenerator &lt;blueprint directory&gt; &lt;shape&gt; &lt;component count&gt; &lt;destination&gt; [seed]
+	 *
+	 * @param args blueprint directory, shape, component count, destination and seed
+	 * @throws IOException if the circuit couldn't be written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 4 || args.length > 5)
+		{
+			System.err.println("Usage: CircuitGenerator <blueprint directory> <chain|ladder|mesh|random> <component count> <destination> [seed]");
+			return;
+		}
+
+		File[] blueprints = new File(args[0]).listFiles();
+		if (blueprints != null)
+		{
+			for (File file : blueprints)
+			{
+				if (file.getName().toLowerCase().endsWith(".xml"))
+					BlueprintContainer.get().addBlueprint(file);
+			}
+		}
+
+		CircuitGenerator generator = new CircuitGenerator(BlueprintContainer.get().getBlueprints())
+				.setShape(Shape.valueOf(args[1].toUpperCase()))
+				.setComponentCount(Integer.parseInt(args[2]))
+				.setRotationMix(0.25);
+		if (args.length == 5)
+			generator.setSeed(Long.parseLong(args[4]));
+		generator.generate(CircuitFormat.fromExtension(args[3]).createParser(), args[3], true);
+	}
+
+	/**
+	 * Constructs new CircuitGenerator
+	 * @param blueprints {@link ComponentBlueprint blueprints} the components are created from
+	 */
+	public CircuitGenerator(Collection<ComponentBlueprint> blueprints)
+	{
+		if (blueprints == null || blueprints.isEmpty())
+			throw new IllegalArgumentException("No blueprints to generate a circuit from");
+		_blueprints = new ArrayList<ComponentBlueprint>(blueprints);
+		// the order of the container is undefined, the types must not depend on it
+		_blueprints.sort(Comparator.comparing(ComponentBlueprint::getType));
+	}
+
+	private final ArrayList<ComponentBlueprint> _blueprints;
+	private Shape _shape = Shape.CHAIN;
+	private int _count = 1000;
+	private double _degree = 2;
+	private double _rotationMix;
+	private long _seed;
+	private int _spacing = 300;
+	private Random _random;
+}
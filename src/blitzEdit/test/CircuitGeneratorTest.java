@@ -0,0 +1,111 @@
+package blitzEdit.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.TreeSet;
+
+import blitzEdit.core.BlueprintContainer;
+import blitzEdit.core.Circuit;
+import blitzEdit.core.Component;
+import blitzEdit.core.Connector;
+import blitzEdit.core.Element;
+import blitzEdit.storage.BinaryParser;
+import blitzEdit.storage.IParser;
+import blitzEdit.storage.XMLParser;
+
+public class CircuitGeneratorTest implements Runnable
+{
+
+	@Override
+	public void run()
+	{
+		System.out.println("Circuit Generator test: generates circuits of every shape, saves and reloads them...\n");
+		
+		File[] blueprints = new File("blueprints").listFiles();
+		if (blueprints != null)
+		{
+			for (File file : blueprints)
+			{
+				if (file.getName().toLowerCase().endsWith(".xml"))
+					BlueprintContainer.get().addBlueprint(file);
+			}
+		}
+		
+		CircuitGenerator generator = new CircuitGenerator(BlueprintContainer.get().getBlueprints())
+				.setComponentCount(2000)
+				.setRotationMix(0.25)
+				.setSeed(42);
+		for (CircuitGenerator.Shape shape : CircuitGenerator.Shape.values())
+		{
+			Circuit circuit = generator.setShape(shape).generate();
+			System.out.println(circuit.getName() + ": " + circuit.getElements().size() + " elements, "
+								+ circuit.getLines().size() + " lines");
+			
+			for (IParser parser : new IParser[] {new XMLParser(), new BinaryParser()})
+			{
+				try
+				{
+					File file = File.createTempFile("generated", parser instanceof XMLParser ? ".xml" : "." + BinaryParser.EXTENSION);
+					parser.writeCircuit(circuit, file.getPath(), true);
+					Circuit loaded = new Circuit();
+					parser.loadCircuit(loaded, file.getPath());
+					boolean equal = loaded.getLines().size() == circuit.getLines().size()
+									&& describe(loaded).equals(describe(circuit));
+					System.out.println("\t" + parser.getClass().getSimpleName() + ": " + file.length() + " bytes, "
+										+ (equal ? "reloaded equal" : "reloaded DIFFERENT"));
+					file.delete();
+				}
+				catch (IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		}
+		System.out.println("\nCircuit Generator Test complete.\n");
+	}
+	
+	/**
+	 * Describes every component of a circuit in the order of the circuit: its type, position,
+	 * rotation and the connectors each of its connectors is connected to, by component and connector index
+	 */
+	private static ArrayList<String> describe(Circuit circuit)
+	{
+		ArrayList<Component> components = new ArrayList<Component>();
+		IdentityHashMap<Connector, String> names = new IdentityHashMap<Connector, String>();
+		for (Element elem : circuit.getElements())
+		{
+			if (elem instanceof Component)
+			{
+				Component comp = (Component)elem;
+				ArrayList<Connector> connectors = comp.getConnectors();
+				for (int i = 0; i < connectors.size(); i++)
+				{
+					names.put(connectors.get(i), components.size() + "." + i);
+				}
+				components.add(comp);
+			}
+		}
+		
+		ArrayList<String> descriptions = new ArrayList<String>();
+		for (Component comp : components)
+		{
+			StringBuilder description = new StringBuilder();
+			description.append(comp.getType()).append(" (").append(comp.getX()).append(", ").append(comp.getY())
+						.append(") rot ").append(comp.getRotation());
+			for (Connector conn : comp.getConnectors())
+			{
+				TreeSet<String> connections = new TreeSet<String>();
+				for (Connector other : conn.getConnections())
+				{
+					connections.add(names.get(other));
+				}
+				description.append(' ').append(connections);
+			}
+			descriptions.add(description.toString());
+		}
+		return descriptions;
+	}
+
+}
@@ -14,6 +14,9 @@ public class CircuitTestStarter {
 		//tests.add(new CircuitAddElementTest());
 		//tests.add(new CircuitSelectTest());
 		//tests.add(new LineTest());
+		tests.add(new NetlistTest());
+		tests.add(new CircuitGeneratorTest());
+		tests.add(new XMLRoundTripTest());
 		System.out.println("Starting " + tests.size() + " tests.");
 		//Arbeitet die tests sequentiell ab
 		for (Runnable test : tests)
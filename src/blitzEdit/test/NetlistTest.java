@@ -0,0 +1,130 @@
+package blitzEdit.test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import blitzEdit.core.Circuit;
+import blitzEdit.core.Component;
+import blitzEdit.core.Connector;
+import blitzEdit.core.Element;
+import blitzEdit.core.Netlist;
+
+public class NetlistTest implements Runnable
+{
+
+	@Override
+	public void run()
+	{
+		System.out.println("Netlist test: connects, disconnects and removes elements and checks the nets...\n");
+
+		int [][] relPos = {{0, 10},{0, -10}};
+		short [] relRot = {0, 0};
+		String svg = "test/TestComponent.svg";
+
+		Component a = new Component(0, 0, (short)0, "A", relPos, relRot, svg);
+		Component b = new Component(100, 0, (short)0, "B", relPos, relRot, svg);
+		Component c = new Component(200, 0, (short)0, "C", relPos, relRot, svg);
+		Component d = new Component(300, 0, (short)0, "D", relPos, relRot, svg);
+
+		Circuit circuit = new Circuit("Netlist");
+		circuit.addElement(a);
+		circuit.addElement(b);
+		circuit.addElement(c);
+		Netlist netlist = circuit.getNetlist();
+		Connector a0 = a.getConnectors().get(0);
+		Connector b0 = b.getConnectors().get(0);
+		Connector c0 = c.getConnectors().get(0);
+		Connector d0 = d.getConnectors().get(0);
+
+		check("every connector is a net of its own", circuit, netlist.getNetCount() == 6);
+
+		a0.connect(b0);
+		b0.connect(c0);
+		check("connecting merges nets", circuit, netlist.isSameNet(a0, c0) && netlist.getNetSize(netlist.getNetId(a0)) == 3);
+
+		circuit.addElement(d);
+		d0.connect(c0);
+		check("added connector joins the net", circuit, netlist.isSameNet(a0, d0) && netlist.getNetCount() == 5);
+
+		b0.disconnect(c0);
+		check("disconnecting splits the net", circuit, netlist.isSameNet(a0, b0) && netlist.isSameNet(c0, d0)
+														&& !netlist.isSameNet(a0, c0) && netlist.getNetCount() == 6);
+
+		a0.connect(d0);
+		check("connecting merges the split nets again", circuit, netlist.isSameNet(b0, c0) && netlist.getNetCount() == 5);
+
+		circuit.removeElement(b);
+		check("removed connectors leave the net", circuit, netlist.getNetId(b0) == -1 && netlist.isSameNet(a0, c0)
+														&& netlist.getNetSize(netlist.getNetId(a0)) == 3);
+
+		circuit.removeElement(d);
+		check("removing the connecting component splits the net", circuit, !netlist.isSameNet(a0, c0)
+														&& netlist.getNetCount() == 4);
+
+		circuit.clearElements();
+		check("clearing removes all nets", circuit, netlist.getNetCount() == 0 && netlist.getConnectorCount() == 0);
+
+		System.out.println("\nNetlist Test complete.\n");
+	}
+
+	/**
+	 * Prints the result of a check, which only passes if the netlist also matches
+	 * the nets found by following the connections of the circuit
+	 */
+	private static void check(String description, Circuit circuit, boolean passed)
+	{
+		passed = passed && matchesConnections(circuit);
+		System.out.println("\t" + description + ": " + (passed ? "passed" : "FAILED"));
+	}
+
+	/**
+	 * Compares the netlist with the nets found by a breadth-first search over the connections
+	 */
+	private static boolean matchesConnections(Circuit circuit)
+	{
+		ArrayList<Connector> connectors = new ArrayList<Connector>();
+		for (Element elem : circuit.getElements())
+		{
+			if (elem instanceof Connector)
+				connectors.add((Connector)elem);
+		}
+
+		IdentityHashMap<Connector, Integer> nets = new IdentityHashMap<Connector, Integer>();
+		int netCount = 0;
+		for (Connector start : connectors)
+		{
+			if (nets.containsKey(start))
+				continue;
+			ArrayDeque<Connector> queue = new ArrayDeque<Connector>();
+			queue.add(start);
+			nets.put(start, netCount);
+			while (!queue.isEmpty())
+			{
+				for (Connector next : queue.poll().getConnections())
+				{
+					if (!nets.containsKey(next))
+					{
+						nets.put(next, netCount);
+						queue.add(next);
+					}
+				}
+			}
+			netCount++;
+		}
+
+		Netlist netlist = circuit.getNetlist();
+		if (netlist.getNetCount() != netCount || netlist.getConnectorCount() != connectors.size())
+			return false;
+		for (Connector c1 : connectors)
+		{
+			for (Connector c2 : connectors)
+			{
+				if (netlist.isSameNet(c1, c2) != nets.get(c1).equals(nets.get(c2)))
+					return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,104 @@
+package blitzEdit.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import blitzEdit.core.BlueprintContainer;
+import blitzEdit.core.Circuit;
+import blitzEdit.storage.LoadListener;
+import blitzEdit.storage.XMLParser;
+
+public class XMLRoundTripTest implements Runnable
+{
+
+	@Override
+	public void run()
+	{
+		System.out.println("XML round trip test: loads test/testcircuit.xml, saves it and compares both files...\n");
+
+		BlueprintContainer.get().addBlueprint(new File("test/TestComponent.xml"));
+
+		File original = new File("test/testcircuit.xml");
+		XMLParser parser = new XMLParser();
+		try
+		{
+			Circuit circuit = new Circuit();
+			RecordingListener listener = new RecordingListener();
+			boolean loaded = parser.loadCircuit(circuit, original.getPath(), listener);
+			check("original loaded without modification prompt", loaded && !listener.prompted);
+
+			File saved = File.createTempFile("roundtrip", ".xml");
+			parser.writeCircuit(circuit, saved.getPath(), true);
+
+			List<String> expected = Files.readAllLines(original.toPath());
+			List<String> actual = Files.readAllLines(saved.toPath());
+			int line = firstDifference(expected, actual);
+			if (line >= 0)
+			{
+				System.out.println("\tline " + (line + 1) + " expected: " + (line < expected.size() ? expected.get(line) : "<end of file>"));
+				System.out.println("\tline " + (line + 1) + " actual:   " + (line < actual.size() ? actual.get(line) : "<end of file>"));
+			}
+			check("saved records and hashes equal the original", line < 0);
+			check("saved file equals the original byte for byte",
+					Arrays.equals(Files.readAllBytes(original.toPath()), Files.readAllBytes(saved.toPath())));
+
+			Circuit reloaded = new Circuit();
+			listener = new RecordingListener();
+			loaded = parser.loadCircuit(reloaded, saved.getPath(), listener);
+			check("saved file reloaded without modification prompt", loaded && !listener.prompted);
+			check("reloaded circuit has all elements", reloaded.getElements().size() == circuit.getElements().size()
+														&& reloaded.getLines().size() == circuit.getLines().size());
+			saved.delete();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+		System.out.println("\nXML round trip test complete.\n");
+	}
+
+	private static int firstDifference(List<String> expected, List<String> actual)
+	{
+		for (int i = 0; i < Math.max(expected.size(), actual.size()); i++)
+		{
+			if (i >= expected.size() || i >= actual.size() || !expected.get(i).equals(actual.get(i)))
+				return i;
+		}
+		return -1;
+	}
+
+	private static void check(String description, boolean passed)
+	{
+		System.out.println("\t" + description + ": " + (passed ? "passed" : "FAILED"));
+	}
+
+	/**
+	 * Declines modified files and remembers if it was asked
+	 */
+	private static class RecordingListener implements LoadListener
+	{
+		boolean prompted;
+
+		@Override
+		public boolean acceptModifications(String filePath)
+		{
+			prompted = true;
+			return false;
+		}
+
+		@Override
+		public void loadingFailed(String filePath, String message)
+		{
+			System.err.println(filePath + ": " + message);
+		}
+
+		@Override
+		public void progress(long records, long bytesRead, long bytesTotal)
+		{
+		}
+	}
+
+}
@@ -3,8 +3,11 @@ package tools;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 
 /**
@@ -27,6 +30,48 @@ public class FileTools
 		return new String(encoded, encoding);
 	}
 	
+	/**
+	 * Writes a file without destroying the old one if writing fails. The content is written
+	 * to a temporary file next to the destination, which replaces the destination afterwards.
+	 * 
+	 * @param 	destination		File path
+	 * @param 	writer			Writes the content to the path it gets
+	 * @throws 	IOException		When writing or replacing the file failes, the old file is unchanged then
+	 */
+	public static void replaceFile(String destination, PathWriter writer) throws IOException
+	{
+		Path target = Paths.get(destination);
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		try
+		{
+			writer.write(temp.toString());
+			try
+			{
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	/**
+	 * Writes the content of a file, used by {@link FileTools#replaceFile(String, PathWriter)}
+	 */
+	public interface PathWriter
+	{
+		/**
+		 * @param 	path			File path to write to
+		 * @throws 	IOException		When writing failes
+		 */
+		void write(String path) throws IOException;
+	}
+	
 	/**
 	 * Reads all files in the given directory. If the folder is a file and not a directory it returns the single file.
 	 * Can be used to additionally get files in the subdirectories.
@@ -0,0 +1,224 @@
+package tools;
+
+/**
+ * Java Flight Recorder events of BlitzEdit. The events are only recorded while a recording
+ * is running, e.g. started with -XX:StartFlightRecording or by jcmd JFR.start. Otherwise
+ * an event only costs its own allocation, code running very often, like hit tests,
+ * checks {@link #isEnabled(Class)} and doesn't create the event at all. Each event has its
+ * duration from begin() to end(), the fields are set before commit() if shouldCommit() returns true.
+ * The recordings can be analysed with JDK Mission Control or the jfr tool.
+ *
+ * The events don't depend on the flight recorder themselves. They are passed to the
+ * JFR implementation in tools.jfr, which is only built with JDK 11 or later and only loaded
+ * if the jvm contains the flight recorder. Otherwise the events do nothing.
+ */
+public class FlightEvents
+{
+	// null if the jvm or the build doesn't contain the flight recorder
+	private static final Recorder recorder = loadRecorder();
+
+	/**
+	 * @return	boolean	True if the events are passed to the flight recorder
+	 */
+	public static boolean isAvailable()
+	{
+		return recorder != null;
+	}
+
+	/**
+	 * Cheap check for code running very often, which shouldn't even create an event while
+	 * no recording is running.
+	 *
+	 * @param	type	Class of the event
+	 * @return	boolean	True if events of the type are currently recorded
+	 */
+	public static boolean isEnabled(Class<? extends Event> type)
+	{
+		return recorder != null && recorder.isEnabled(type);
+	}
+
+	private static Recorder loadRecorder()
+	{
+		try
+		{
+			Class.forName("jdk.jfr.Event");
+			return (Recorder) Class.forName("tools.jfr.JfrRecorder").getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException | LinkageError e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Passes the events to the flight recorder
+	 */
+	public interface Recorder
+	{
+		/**
+		 * @param type class of the event
+		 * @return true if events of the type are currently recorded
+		 */
+		boolean isEnabled(Class<? extends Event> type);
+
+		/**
+		 * Starts recording an event
+		 * @param event event to record
+		 * @return recorded event of the flight recorder, null if the event isn't supported or not recorded
+		 */
+		Object begin(Event event);
+
+		/**
+		 * Ends the duration of a recorded event
+		 * @param recorded recorded event returned by {@link #begin(Event)}
+		 */
+		void end(Object recorded);
+
+		/**
+		 * @param recorded recorded event returned by {@link #begin(Event)}
+		 * @return true if the event is recorded by a running recording
+		 */
+		boolean shouldCommit(Object recorded);
+
+		/**
+		 * Copies the fields of an event and commits the recorded event
+		 * @param event event with the values of the fields
+		 * @param recorded recorded event returned by {@link #begin(Event)}
+		 */
+		void commit(Event event, Object recorded);
+	}
+
+	/**
+	 * Base class of the events
+	 */
+	public static abstract class Event
+	{
+		private Object recorded;
+
+		/**
+		 * Starts the duration of this event
+		 */
+		public void begin()
+		{
+			if (recorder != null)
+				recorded = recorder.begin(this);
+		}
+
+		/**
+		 * Ends the duration of this event
+		 */
+		public void end()
+		{
+			if (recorded != null)
+				recorder.end(recorded);
+		}
+
+		/**
+		 * @return true if this event is recorded, only then its fields have to be set
+		 */
+		public boolean shouldCommit()
+		{
+			return recorded != null && recorder.shouldCommit(recorded);
+		}
+
+		/**
+		 * Writes this event to the recording
+		 */
+		public void commit()
+		{
+			if (recorded != null)
+				recorder.commit(this, recorded);
+		}
+	}
+
+	/**
+	 * Loading a circuit from disk
+	 */
+	public static class CircuitLoad extends Event
+	{
+		public String path;
+		public String format;
+		// number of elements in the loaded circuit
+		public int elements;
+		public long bytes;
+		public boolean loaded;
+	}
+
+	/**
+	 * Saving a circuit to disk
+	 */
+	public static class CircuitSave extends Event
+	{
+		public String path;
+		public String format;
+		// number of elements in the saved circuit
+		public int elements;
+		// size of the written file
+		public long bytes;
+	}
+
+	/**
+	 * Complete redraw of a circuit canvas
+	 */
+	public static class CanvasRefresh extends Event
+	{
+		// scale of the canvas, 1 is the original size
+		public double zoom;
+		public boolean gridRedrawn;
+		// number of elements in the circuit
+		public int circuitElements;
+	}
+
+	/**
+	 * Drawing the lines and elements in an area of a circuit canvas
+	 */
+	public static class DrawElements extends Event
+	{
+		// scale of the canvas, 1 is the original size
+		public double zoom;
+		// true if only a damaged area was repainted, false for the whole visible area
+		public boolean damagedArea;
+		public double areaWidth;
+		public double areaHeight;
+		// components and connectors drawn with their image
+		public int elementsDrawn;
+		// components drawn as box, because they are too small on the screen
+		public int boxesDrawn;
+		// connectors skipped, because they are too small on the screen
+		public int elementsCulled;
+		public int linesDrawn;
+	}
+
+	/**
+	 * Query of the elements at a position or in a rectangle of a circuit
+	 */
+	public static class HitTest extends Event
+	{
+		public int x;
+		public int y;
+		// width and height are 0 for a query of a position
+		public int width;
+		public int height;
+		// elements returned by the spatial index
+		public int candidates;
+		// elements actually at the position or in the rectangle
+		public int hits;
+	}
+
+	/**
+	 * Import of the blueprints of a library directory, from reading the files until the entries are added or the import is cancelled or failed
+	 */
+	public static class LibraryImport extends Event
+	{
+		public String directory;
+		public int files;
+		// blueprints read successfully
+		public int blueprints;
+		// size of the xml files
+		public long bytes;
+	}
+
+	private FlightEvents()
+	{
+	}
+}
@@ -9,4 +9,8 @@ public final class GlobalSettings {
 	//if true, components are aligned to the grid when placed or moved
 	public static boolean SNAP_TO_GRID = true;
 	public static boolean DISPLAY_GRID = true;
+	//if true, the circuit canvas shows frame times and other metrics, see Metrics
+	public static boolean DISPLAY_PERFORMANCE_HUD = false;
+	//maximum number of pixels of all component images cached by the SpriteCache
+	public static long SPRITE_CACHE_PIXELS = 16 * 1024 * 1024;
 }
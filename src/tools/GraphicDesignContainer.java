@@ -2,6 +2,7 @@ package tools;
 
 import javafx.scene.Cursor;
 import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
 
 /**
  * Container for all graphical design variables used in the programm as colors, line widths and cursors.
@@ -38,6 +39,16 @@ public class GraphicDesignContainer
 	
 	// circuit canvas
 	public static final double zoom_factor = 0.125; // must be between interval (0;0.5)
+	public static double min_zoom = 0.05;
+	
+	// level of detail, sizes in pixels on the screen
+	public static double lod_box_size = 16; // smaller components are drawn as boxes, lines with a smaller corner as straight line
+	public static double lod_connector_size = 6; // connectors of smaller components aren't drawn
+	
+	// performance hud
+	public static final Color hud_background_color = Color.rgb(0, 0, 0, 0.7);
+	public static final Color hud_text_color = Color.WHITE;
+	public static final Font hud_font = Font.font("Monospaced", 12);
 	
 	// cursor
 	public static final Cursor move_cursor = Cursor.MOVE;
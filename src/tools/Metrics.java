@@ -0,0 +1,276 @@
+package tools;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of lightweight in-process metrics, shown by the performance HUD of the circuit canvas.
+ * Metrics are registered once by name, usually in a static field, and record values only while
+ * the registry is enabled. While it is disabled, recording costs one read of a volatile field
+ * and {@link #now()} doesn't even read the clock.
+ *
+ * Every {@link Histogram} keeps the last {@link Histogram#SAMPLES} values, so its percentiles
+ * describe the recent behaviour, e.g. the frames of the last seconds.
+ */
+public final class Metrics
+{
+	private static volatile boolean enabled;
+
+	private static final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+	// null if the jvm can't measure the allocated bytes of a thread
+	private static final com.sun.management.ThreadMXBean threadBean = allocationBean();
+
+	/**
+	 * @return boolean	True if the metrics record values
+	 */
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables recording. All values are cleared when recording is enabled.
+	 *
+	 * @param	enable	True to record values
+	 */
+	public static void setEnabled(boolean enable)
+	{
+		if (enable && !enabled)
+		{
+			for (Histogram histogram : histograms.values())
+			{
+				histogram.clear();
+			}
+		}
+		enabled = enable;
+	}
+
+	/**
+	 * Returns the histogram with a name, creates it if it doesn't exist yet.
+	 *
+	 * @param	name		Name of the histogram, e.g. "canvas.frameTime"
+	 * @param	unit		Unit of the values, used for displaying them
+	 * @return	Histogram	Histogram with the name
+	 */
+	public static Histogram histogram(String name, Unit unit)
+	{
+		return histograms.computeIfAbsent(name, key -> new Histogram(key, unit));
+	}
+
+	/**
+	 * @return Collection&lt;Histogram&gt;	All registered histograms
+	 */
+	public static Collection<Histogram> getHistograms()
+	{
+		return histograms.values();
+	}
+
+	/**
+	 * Start time for {@link Histogram#recordSince(long)}.
+	 *
+	 * @return	long	Current value of System.nanoTime(), 0 if the metrics are disabled
+	 */
+	public static long now()
+	{
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Bytes allocated by the current thread since it was started.
+	 *
+	 * @return	long	Allocated bytes, -1 if the metrics are disabled or the jvm doesn't support measuring them
+	 */
+	public static long allocatedBytes()
+	{
+		if (!enabled || threadBean == null)
+			return -1;
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static com.sun.management.ThreadMXBean allocationBean()
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+		{
+			com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+			if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled())
+				return allocationBean;
+		}
+		return null;
+	}
+
+	/**
+	 * Units of the values of a {@link Histogram}
+	 */
+	public enum Unit
+	{
+		/**
+		 * Durations in nanoseconds, displayed in ms or &micro;s
+		 */
+		NANOSECONDS,
+		/**
+		 * Amounts of memory, displayed in kB or MB
+		 */
+		BYTES,
+		/**
+		 * Plain numbers, e.g. numbers of elements
+		 */
+		COUNT;
+
+		/**
+		 * Formats a value of this unit for displaying it.
+		 *
+		 * @param	value	Value in this unit
+		 * @return	String	Value with a readable unit
+		 */
+		public String format(double value)
+		{
+			switch (this)
+			{
+			case NANOSECONDS:
+				if (value < 1000000)
+					return String.format("%.0f \u00b5s", value / 1000);
+				return String.format("%.1f ms", value / 1000000);
+			case BYTES:
+				if (value < 1024 * 1024)
+					return String.format("%.1f kB", value / 1024);
+				return String.format("%.1f MB", value / (1024 * 1024));
+			default:
+				return String.format("%.0f", value);
+			}
+		}
+	}
+
+	/**
+	 * Distribution of the recently recorded values of a metric
+	 */
+	public static final class Histogram
+	{
+		/**
+		 * Number of values kept for computing the percentiles
+		 */
+		public static final int SAMPLES = 256;
+
+		private final String name;
+		private final Unit unit;
+		private final long[] samples = new long[SAMPLES];
+		private long count;
+
+		private Histogram(String name, Unit unit)
+		{
+			this.name = name;
+			this.unit = unit;
+		}
+
+		/**
+		 * Records a value, does nothing if the metrics are disabled.
+		 *
+		 * @param	value	Value in the unit of this histogram
+		 */
+		public void record(long value)
+		{
+			if (!enabled)
+				return;
+			synchronized (this)
+			{
+				samples[(int) (count % SAMPLES)] = value;
+				count++;
+			}
+		}
+
+		/**
+		 * Records the time since a start time as value.
+		 *
+		 * @param	start	Start time from {@link Metrics#now()}, nothing is recorded if it is 0
+		 */
+		public void recordSince(long start)
+		{
+			if (start != 0)
+				record(System.nanoTime() - start);
+		}
+
+		/**
+		 * Returns a percentile of the recent values.
+		 *
+		 * @param	percentile	Percentile between 0 and 100, e.g. 50 for the median
+		 * @return	long		Value of the percentile, 0 if no values were recorded
+		 */
+		public long percentile(double percentile)
+		{
+			long[] values = snapshot();
+			if (values.length == 0)
+				return 0;
+			Arrays.sort(values);
+			int index = (int) Math.ceil(percentile / 100 * values.length) - 1;
+			return values[Math.max(0, Math.min(values.length - 1, index))];
+		}
+
+		/**
+		 * @return double	Mean of the recent values, 0 if no values were recorded
+		 */
+		public double mean()
+		{
+			long[] values = snapshot();
+			if (values.length == 0)
+				return 0;
+			double sum = 0;
+			for (long value : values)
+			{
+				sum += value;
+			}
+			return sum / values.length;
+		}
+
+		/**
+		 * @return long	Last recorded value, 0 if no values were recorded
+		 */
+		public synchronized long last()
+		{
+			if (count == 0)
+				return 0;
+			return samples[(int) ((count - 1) % SAMPLES)];
+		}
+
+		/**
+		 * @return long	Number of values recorded since the metrics were enabled
+		 */
+		public synchronized long getCount()
+		{
+			return count;
+		}
+
+		/**
+		 * @return String	Name of this histogram
+		 */
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 * @return Unit	Unit of the values
+		 */
+		public Unit getUnit()
+		{
+			return unit;
+		}
+
+		private synchronized long[] snapshot()
+		{
+			return Arrays.copyOf(samples, (int) Math.min(count, SAMPLES));
+		}
+
+		private synchronized void clear()
+		{
+			count = 0;
+		}
+	}
+
+	private Metrics()
+	{
+	}
+}
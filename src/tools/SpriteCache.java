@@ -0,0 +1,208 @@
+package tools;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Affine;
+
+/**
+ * Cache for rasterized svg images of components. Every combination of svg image, rotation,
+ * scale, scale of the canvas and selection mode is rendered once into an image, drawing a component
+ * afterwards only copies the image onto the canvas. The images are rendered and drawn in screen space,
+ * so they look like the vector image at every zoom level instead of being scaled by the canvas.
+ *
+ * The least recently used images are dropped when all cached images together exceed
+ * {@link GlobalSettings#SPRITE_CACHE_PIXELS} pixels. Images of a svg file that has been
+ * reloaded by the {@link SvgCache} aren't used anymore.
+ *
+ * The images are created by snapshots, so the cache may only be used on the JavaFX application thread.
+ */
+public class SpriteCache
+{
+	// space for the selection rect around the image
+	private static final double PADDING = 10 + GraphicDesignContainer.selected_stroke_width;
+
+	// the scale of the canvas is rounded to multiples of 1 / SCALE_STEPS for the images
+	private static final double SCALE_STEPS = 1024;
+
+	// images by key in access order, the first one is the least recently used
+	private static final LinkedHashMap<Key, Image> sprites = new LinkedHashMap<Key, Image>(64, 0.75f, true);
+	// reused for lookups, so drawing doesn't allocate
+	private static final Key probe = new Key();
+	private static final Affine transform = new Affine();
+	private static long pixels;
+
+	/**
+	 * Draws a svg image on a graphical context like {@link SvgRenderer#renderSvg(SvgDisplayList, GraphicsContext, double, double, double, double, SelectionMode)},
+	 * using a cached image if possible.
+	 *
+	 * @param	svg			Cache entry of the svg file
+	 * @param	gc			Graphical context of the canvas
+	 * @param	offsetX		X position of the element (center)
+	 * @param	offsetY		Y position of the element (center)
+	 * @param	scale		Scale of the image, the scale of the canvas is taken from the transform of gc
+	 * @param	rot			Rotation of the image
+	 * @param	mode		Selection mode of the component
+	 */
+	public static void draw(SvgCache.Entry svg, GraphicsContext gc, double offsetX, double offsetY, double scale, double rot, SelectionMode mode)
+	{
+		gc.getTransform(transform);
+		// only a scaled and translated canvas can be drawn on in screen space
+		double canvasScale = transform.getMxx();
+		if (transform.getMxy() != 0 || transform.getMyx() != 0 || transform.getMyy() != canvasScale)
+		{
+			SvgRenderer.renderSvg(svg.getDisplayList(), gc, offsetX, offsetY, scale, rot, mode);
+			return;
+		}
+
+		// only a selected image looks different
+		boolean selected = mode == SelectionMode.SELECTED;
+		// rounding errors of the zoom steps must not create new images
+		double spriteScale = Math.round(canvasScale * SCALE_STEPS) / SCALE_STEPS;
+
+		probe.set(svg, svg.getVersion(), rot, scale, spriteScale, selected);
+		Image sprite = sprites.get(probe);
+		if (sprite == null)
+		{
+			sprite = render(svg.getDisplayList(), scale, spriteScale, rot, selected);
+			if (sprite == null)
+			{
+				SvgRenderer.renderSvg(svg.getDisplayList(), gc, offsetX, offsetY, scale, rot, mode);
+				return;
+			}
+			put(new Key(probe), sprite);
+		}
+
+		// the image has an even size, so its center is exactly at the rounded screen position
+		double screenX = Math.round(canvasScale * offsetX + transform.getTx());
+		double screenY = Math.round(canvasScale * offsetY + transform.getTy());
+		gc.setTransform(1, 0, 0, 1, 0, 0);
+		gc.drawImage(sprite, screenX - sprite.getWidth() * 0.5, screenY - sprite.getHeight() * 0.5);
+		gc.setTransform(transform);
+	}
+
+	/**
+	 * Removes all cached images
+	 */
+	public static void clear()
+	{
+		sprites.clear();
+		pixels = 0;
+	}
+
+	/**
+	 * @return number of pixels of all cached images
+	 */
+	public static long getPixelCount()
+	{
+		return pixels;
+	}
+
+	/**
+	 * Renders a svg image with transparent background. The image is rendered like on a canvas
+	 * scaled by canvasScale, including the width of the strokes and the selection rect.
+	 *
+	 * @return	Image	rendered image, null if it would be empty or larger than the cache
+	 */
+	private static Image render(SvgDisplayList svg, double scale, double canvasScale, double rot, boolean selected)
+	{
+		if (svg.getWidth() <= 0 || svg.getHeight() <= 0 || scale <= 0 || canvasScale <= 0)
+			return null;
+
+		// large enough for every rotation
+		int size = 2 * (int) Math.ceil((Math.hypot(svg.getWidth(), svg.getHeight()) * scale * 0.5 + PADDING) * canvasScale);
+		if ((long) size * size > GlobalSettings.SPRITE_CACHE_PIXELS)
+			return null;
+
+		Canvas canvas = new Canvas(size, size);
+		GraphicsContext spriteGc = canvas.getGraphicsContext2D();
+		spriteGc.setTransform(canvasScale, 0, 0, canvasScale, size / 2, size / 2);
+		SvgRenderer.renderSvg(svg, spriteGc, 0, 0, scale, rot,
+				selected ? SelectionMode.SELECTED : SelectionMode.UNSELECTED);
+
+		SnapshotParameters params = new SnapshotParameters();
+		params.setFill(Color.TRANSPARENT);
+		return canvas.snapshot(params, null);
+	}
+
+	/**
+	 * Adds an image and drops the least recently used ones if the cache is full
+	 */
+	private static void put(Key key, Image sprite)
+	{
+		sprites.put(key, sprite);
+		pixels += pixelCount(sprite);
+
+		Iterator<Map.Entry<Key, Image>> it = sprites.entrySet().iterator();
+		while (pixels > GlobalSettings.SPRITE_CACHE_PIXELS && it.hasNext())
+		{
+			Image eldest = it.next().getValue();
+			pixels -= pixelCount(eldest);
+			it.remove();
+		}
+	}
+
+	private static long pixelCount(Image image)
+	{
+		return (long) image.getWidth() * (long) image.getHeight();
+	}
+
+	/**
+	 * Identifies a cached image
+	 */
+	private static final class Key
+	{
+		void set(SvgCache.Entry svg, long version, double rot, double scale, double canvasScale, boolean selected)
+		{
+			_svg = svg;
+			_version = version;
+			_rot = rot;
+			_scale = scale;
+			_canvasScale = canvasScale;
+			_selected = selected;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int hash = System.identityHashCode(_svg);
+			hash = 31 * hash + (int) (_version ^ (_version >>> 32));
+			hash = 31 * hash + Double.hashCode(_rot);
+			hash = 31 * hash + Double.hashCode(_scale);
+			hash = 31 * hash + Double.hashCode(_canvasScale);
+			return 31 * hash + (_selected ? 1 : 0);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof Key))
+				return false;
+			Key key = (Key) obj;
+			return _svg == key._svg && _version == key._version && _rot == key._rot
+					&& _scale == key._scale && _canvasScale == key._canvasScale && _selected == key._selected;
+		}
+
+		Key()
+		{
+		}
+
+		Key(Key key)
+		{
+			set(key._svg, key._version, key._rot, key._scale, key._canvasScale, key._selected);
+		}
+
+		private SvgCache.Entry _svg;
+		private long _version;
+		private double _rot;
+		private double _scale;
+		private double _canvasScale;
+		private boolean _selected;
+	}
+}
@@ -0,0 +1,174 @@
+package tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache for the content of svg files, shared by all components and blueprints.
+ * Every file is read and scanned once. If the file is modified on disk, the entry
+ * is reloaded the next time its content is requested. The content is also kept compiled
+ * into a {@link SvgDisplayList}, so it doesn't have to be parsed while drawing.
+ */
+public class SvgCache
+{
+	// files are checked for modifications at most this often
+	private static final long CHECK_INTERVAL = 1000;
+
+	// entries by canonical path
+	private static final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	// entries by the path they were requested with, saves resolving the canonical path
+	private static final ConcurrentHashMap<String, Entry> aliases = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * Returns the cache entry of a svg file. Files with the same canonical path share one entry.
+	 *
+	 * @param	svgFilePath		Location of the svg file on the operating system
+	 * @return	Entry			Cache entry of the file
+	 */
+	public static Entry get(String svgFilePath)
+	{
+		Entry entry = aliases.get(svgFilePath);
+		if (entry == null)
+		{
+			String canonicalPath = canonicalPath(svgFilePath);
+			entry = entries.get(canonicalPath);
+			if (entry == null)
+			{
+				Entry newEntry = new Entry(canonicalPath);
+				entry = entries.putIfAbsent(canonicalPath, newEntry);
+				if (entry == null)
+					entry = newEntry;
+			}
+			aliases.putIfAbsent(svgFilePath, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Forces the svg file to be read again the next time its content is requested
+	 *
+	 * @param	svgFilePath		Location of the svg file on the operating system
+	 */
+	public static void invalidate(String svgFilePath)
+	{
+		get(svgFilePath).invalidate();
+	}
+
+	/**
+	 * Forces all svg files to be read again the next time their content is requested
+	 */
+	public static void invalidateAll()
+	{
+		for (Entry entry : entries.values())
+		{
+			entry.invalidate();
+		}
+	}
+
+	private static String canonicalPath(String path)
+	{
+		try
+		{
+			return new File(path).getCanonicalPath();
+		}
+		catch (IOException e)
+		{
+			return new File(path).getAbsolutePath();
+		}
+	}
+
+	/**
+	 * Cached content of one svg file
+	 */
+	public static final class Entry
+	{
+		/**
+		 * @return canonical path of the svg file
+		 */
+		public String getPath()
+		{
+			return _path;
+		}
+
+		/**
+		 * Returns the scanned content of the svg file, see {@link SvgRenderer#getSvgFileString(String)}.
+		 * Reloads the file if it has been modified.
+		 *
+		 * @return	String	content of the svg file, null if it couldn't be read
+		 */
+		public String getContent()
+		{
+			long now = System.currentTimeMillis();
+			if (now - _lastCheck >= CHECK_INTERVAL)
+				check(now);
+			return _content;
+		}
+
+		/**
+		 * Returns the content of the svg file compiled into a display list.
+		 * Reloads the file if it has been modified.
+		 *
+		 * @return	SvgDisplayList	compiled content, empty if the file couldn't be read
+		 */
+		public SvgDisplayList getDisplayList()
+		{
+			getContent();
+			return _displayList;
+		}
+
+		/**
+		 * Returns the version of the content, which changes every time the file is reloaded.
+		 * Can be used to invalidate data derived from the content.
+		 *
+		 * @return version of the content
+		 */
+		public long getVersion()
+		{
+			getContent();
+			return _version;
+		}
+
+		private synchronized void check(long now)
+		{
+			if (now - _lastCheck < CHECK_INTERVAL)
+				return;
+			long lastModified = new File(_path).lastModified();
+			if (_lastCheck == 0 || lastModified != _lastModified)
+			{
+				String content = null;
+				try
+				{
+					content = SvgRenderer.scanFileString(FileTools.readFile(_path, StandardCharsets.UTF_8));
+				}
+				catch (IOException e)
+				{
+					e.printStackTrace();
+				}
+				_displayList = SvgDisplayList.compile(content);
+				_content = content;
+				_lastModified = lastModified;
+				_version++;
+			}
+			_lastCheck = now;
+		}
+
+		private void invalidate()
+		{
+			_lastCheck = 0;
+		}
+
+		private Entry(String path)
+		{
+			_path = path;
+		}
+
+		private final String _path;
+		private volatile String _content;
+		private volatile SvgDisplayList _displayList;
+		private volatile long _version;
+		private volatile long _lastModified;
+		private volatile long _lastCheck;
+	}
+}
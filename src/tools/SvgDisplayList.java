@@ -0,0 +1,204 @@
+package tools;
+
+import java.util.Arrays;
+
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * Svg image compiled into a list of drawing operations. The svg string is parsed once,
+ * drawing only replays the operations on a graphical context.
+ *
+ * Supports the same subset of svg as {@link SvgRenderer}: the size of the image and rect tags.
+ */
+public class SvgDisplayList
+{
+	// rect drawn with stroke or fill
+	private static final byte RECT = 0;
+	// rect with fill="none", only visible if it has a stroke or is rotated
+	private static final byte RECT_NO_FILL = 1;
+
+	// x, y, width, height, stroke width
+	private static final int VALUES_PER_OP = 5;
+
+	/**
+	 * Compiles a svg string, as returned by {@link SvgRenderer#getSvgFileString(String)}
+	 *
+	 * @param	svgString		String containing the xml, may be null
+	 * @return	SvgDisplayList	compiled image
+	 */
+	public static SvgDisplayList compile(String svgString)
+	{
+		SvgDisplayList list = new SvgDisplayList();
+		if (svgString == null)
+			return list;
+
+		list._width = SvgRenderer.getSvgWidth(svgString);
+		list._height = SvgRenderer.getSvgHeight(svgString);
+		for (String s : svgString.split("<"))
+		{
+			if (s.startsWith("rect"))
+			{
+				list.addRect(s);
+			}
+			else if (s.startsWith("polygon"))
+			{
+				//TODO polygon renderer
+			}
+		}
+		list._ops = Arrays.copyOf(list._ops, list._count);
+		list._values = Arrays.copyOf(list._values, list._count * VALUES_PER_OP);
+		return list;
+	}
+
+	/**
+	 * @return width of the svg, -1 if it has no width property
+	 */
+	public double getWidth()
+	{
+		return _width;
+	}
+
+	/**
+	 * @return height of the svg, -1 if it has no height property
+	 */
+	public double getHeight()
+	{
+		return _height;
+	}
+
+	/**
+	 * Draws the image on a graphical context
+	 *
+	 * @param	gc			Graphical context of the canvas
+	 * @param	offsetX		X position of the image (center)
+	 * @param	offsetY		Y position of the image (center)
+	 * @param	scale		Scale of the image
+	 * @param	rot			Rotation of the image around its center
+	 */
+	public void draw(GraphicsContext gc, double offsetX, double offsetY, double scale, double rot)
+	{
+		if (_count == 0)
+			return;
+
+		double left = offsetX - scale * _width * 0.5;
+		double top = offsetY - scale * _height * 0.5;
+
+		gc.save();
+		gc.setFill(GraphicDesignContainer.elements_color);
+		gc.setStroke(GraphicDesignContainer.elements_color);
+		if (rot != 0)
+		{
+			// rotate around the center, rounded like the rotation point of the string renderer
+			double pivotX = (int) offsetX;
+			double pivotY = (int) offsetY;
+			gc.translate(pivotX, pivotY);
+			gc.rotate(rot);
+			left -= pivotX;
+			top -= pivotY;
+		}
+		double defaultLineWidth = gc.getLineWidth();
+
+		for (int i = 0, v = 0; i < _count; i++, v += VALUES_PER_OP)
+		{
+			double x = left + _values[v] * scale;
+			double y = top + _values[v + 1] * scale;
+			double width = _values[v + 2] * scale;
+			double height = _values[v + 3] * scale;
+			// stroke width is an integer, a thin stroke can vanish when scaled down
+			int strokeWidth = (int) (_values[v + 4] * scale);
+
+			if (strokeWidth != 0)
+			{
+				gc.setLineWidth(strokeWidth);
+				gc.strokeRect(x, y, width, height);
+				gc.setLineWidth(defaultLineWidth);
+			}
+			else if (_ops[i] == RECT_NO_FILL)
+			{
+				// an unrotated rect without fill and stroke isn't visible
+				if (rot != 0)
+					gc.strokeRect(x, y, width, height);
+			}
+			else
+			{
+				gc.fillRect(x, y, width, height);
+			}
+		}
+		gc.restore();
+	}
+
+	/**
+	 * Parses the attributes of a rect tag and appends it
+	 */
+	private void addRect(String rectString)
+	{
+		double x = 0;
+		double y = 0;
+		double height = 0;
+		double width = 0;
+		int strokeWidth = 0;
+		String fill = "";
+
+		for (String s : rectString.split(" "))
+		{
+			s = s.replace('"', ' ');
+			s = s.trim();
+			if (s.contains("x="))
+			{
+				x = Double.parseDouble(s.split(" ")[1]);
+			}
+			else if (s.contains("y="))
+			{
+				y = Double.parseDouble(s.split(" ")[1]);
+			}
+			else if (s.contains("stroke-width="))
+			{
+				strokeWidth = Integer.parseInt(s.split(" ")[1]);
+			}
+			else if (s.contains("stroke="))
+			{
+				// stroke color isn't used, elements are drawn in GraphicDesignContainer.elements_color
+			}
+			else if (s.contains("width="))
+			{
+				width = Double.parseDouble(s.split(" ")[1]);
+			}
+			else if (s.contains("height="))
+			{
+				height = Double.parseDouble(s.split(" ")[1]);
+			}
+			else if (s.contains("fill="))
+			{
+				fill = s.split(" ")[1];
+			}
+		}
+
+		if (_count == _ops.length)
+		{
+			_ops = Arrays.copyOf(_ops, _count * 2);
+			_values = Arrays.copyOf(_values, _count * 2 * VALUES_PER_OP);
+		}
+		int v = _count * VALUES_PER_OP;
+		_ops[_count] = fill.contains("none") ? RECT_NO_FILL : RECT;
+		_values[v] = x;
+		_values[v + 1] = y;
+		_values[v + 2] = width;
+		_values[v + 3] = height;
+		_values[v + 4] = strokeWidth;
+		_count++;
+	}
+
+	private SvgDisplayList()
+	{
+		_ops = new byte[8];
+		_values = new double[8 * VALUES_PER_OP];
+		_width = -1;
+		_height = -1;
+	}
+
+	private byte[] _ops;
+	private double[] _values;
+	private int _count;
+	private double _width;
+	private double _height;
+}
@@ -26,32 +26,16 @@ import javafx.scene.transform.Transform;
  */
 public class SvgRenderer
 {	
-	private static Point rotationPoint = new Point();
-	
 	/**
-	 * Used to get the xml string of a svg file.
+	 * Used to get the xml string of a svg file. The content is cached by {@link SvgCache},
+	 * so the file is only read once.
 	 * 
 	 * @param	SvgFilePath		Location of the svg file on the operating system
 	 * @return	String			Contains the content of the svg file as string
 	 */
 	static public String getSvgFileString(String SvgFilePath)
 	{
-		String fileString = null;
-		try
-		{
-			fileString = FileTools.readFile(SvgFilePath, StandardCharsets.UTF_8);
-		}
-		catch (IOException e)
-		{
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-		
-		if(fileString != null)
-		{
-			return scanFileString(fileString);
-		}
-		return null;
+		return SvgCache.get(SvgFilePath).getContent();
 	}
 	
 	/**
@@ -60,9 +44,9 @@ public class SvgRenderer
 	 * @param	fileString	String containing the xml
 	 * @return	String		Contains the truncated content of the original string
 	 */
-	private static String scanFileString(String fileString)
+	static String scanFileString(String fileString)
 	{
-		String result = new String();
+		StringBuilder result = new StringBuilder();
 		
 		String[] textList = fileString.split("<");
 		for(String s : textList)
@@ -73,10 +57,10 @@ public class SvgRenderer
 			// only use xml statements important for rendering
 			if(s.contains("<rect") || s.contains("<polygon") || s.contains("<svg version"))
 			{
-				result += s;
+				result.append(s);
 			}
 		}
-		return result;
+		return result.toString();
 	}
 	
 	/**
@@ -92,27 +76,47 @@ public class SvgRenderer
 	 */
 	static public void renderSvgString(String svgString, GraphicsContext gc, double offsetX, double offsetY, double scale, SelectionMode mode)
 	{
-		String[] svgElements = svgString.split("<");
-		
-		double svgWidth = scale*getSvgWidth(svgString);
-		double svgHeight =scale*getSvgHeight(svgString);
+		renderSvg(SvgDisplayList.compile(svgString), gc, offsetX, offsetY, scale, mode);
+	}
+	
+	/**
+	 * Used for drawing a rotated svg image of an {@link blitzEdit.core.Element} on a graphical context.
+	 * Considers SelectionMode and draws an image according to GraphicDesignContainer constants if an element is selected or unselected
+	 * 
+	 * @param	svgString	String containing the xml
+	 * @param	gc			Graphical context of the canvas
+	 * @param	offsetX		X position of the element (center)
+	 * @param	offsetY		X position of the element (center)
+	 * @param	scale		Scale of the image
+	 * @param	rot			Rotation of the image
+	 * @param 	mode		Selection mode of the component
+	 */
+	static public void renderSvgString(String svgString, GraphicsContext gc, double offsetX, double offsetY, double scale, double rot, SelectionMode mode)
+	{
+		renderSvg(SvgDisplayList.compile(svgString), gc, offsetX, offsetY, scale, rot, mode);
+	}
+	
+	/**
+	 * Used for drawing a compiled svg image of an {@link blitzEdit.core.Element} on a graphical context.
+	 * Considers SelectionMode and draws an image according to GraphicDesignContainer constants if an element is selected or unselected
+	 * 
+	 * @param	svg			Compiled svg image
+	 * @param	gc			Graphical context of the canvas
+	 * @param	offsetX		X position of the element (center)
+	 * @param	offsetY		X position of the element (center)
+	 * @param	scale		Scale of the image
+	 * @param 	mode		Selection mode of the component
+	 */
+	static public void renderSvg(SvgDisplayList svg, GraphicsContext gc, double offsetX, double offsetY, double scale, SelectionMode mode)
+	{
+		double svgWidth = scale*svg.getWidth();
+		double svgHeight =scale*svg.getHeight();
 		double svgWidthMedian = svgWidth*0.5;
 		double svgHeightMedian = svgHeight*0.5;
 		
 		double selectedRectPadding = 10;
 		
-		
-		for(String s: svgElements)
-		{
-			if(s.startsWith("rect"))
-			{
-				renderRect(s,gc,offsetX-svgWidthMedian,offsetY-svgHeightMedian, scale, 0);
-			}
-			else if(s.startsWith("polygon"))
-			{
-				//TODO polygin renderer
-			}
-		}
+		svg.draw(gc, offsetX, offsetY, scale, 0);
 		
 		// draws rect around element when selected
 		if(mode.equals(SelectionMode.SELECTED))
@@ -125,10 +129,10 @@ public class SvgRenderer
 	}
 	
 	/**
-	 * Used for drawing a rotated svg image of an {@link blitzEdit.core.Element} on a graphical context.
+	 * Used for drawing a rotated, compiled svg image of an {@link blitzEdit.core.Element} on a graphical context.
 	 * Considers SelectionMode and draws an image according to GraphicDesignContainer constants if an element is selected or unselected
 	 * 
-	 * @param	svgString	String containing the xml
+	 * @param	svg			Compiled svg image
 	 * @param	gc			Graphical context of the canvas
 	 * @param	offsetX		X position of the element (center)
 	 * @param	offsetY		X position of the element (center)
@@ -136,32 +140,15 @@ public class SvgRenderer
 	 * @param	rot			Rotation of the image
 	 * @param 	mode		Selection mode of the component
 	 */
-	static public void renderSvgString(String svgString, GraphicsContext gc, double offsetX, double offsetY, double scale, double rot, SelectionMode mode)
+	static public void renderSvg(SvgDisplayList svg, GraphicsContext gc, double offsetX, double offsetY, double scale, double rot, SelectionMode mode)
 	{
-		String[] svgElements = svgString.split("<");
-		
-		double svgWidth = scale*getSvgWidth(svgString);
-		double svgHeight =scale*getSvgHeight(svgString);
+		double svgWidth = scale*svg.getWidth();
+		double svgHeight =scale*svg.getHeight();
 		double svgWidthMedian = svgWidth*0.5;
 		double svgHeightMedian = svgHeight*0.5;
 		double selectedRectPadding = 10;
 		
-		rotationPoint.x = (int) offsetX;
-		rotationPoint.y = (int) offsetY;
-		
-		
-		for(String s: svgElements)
-		{
-			if(s.startsWith("rect"))
-			{
-				renderRect(s,gc,offsetX-svgWidthMedian,offsetY-svgHeightMedian, scale, rot);
-			}
-			else if(s.startsWith("polygon"))
-			{
-				//TODO polygin renderer
-			}
-		}
-		
+		svg.draw(gc, offsetX, offsetY, scale, rot);
 		
 		// draws rect around element when selected
 		if(mode.equals(SelectionMode.SELECTED))
@@ -183,6 +170,35 @@ public class SvgRenderer
 		}
 	}
 	
+	/**
+	 * Used for drawing an {@link blitzEdit.core.Element} as filled box, when it is too small on the screen
+	 * to show the details of its svg image.
+	 * 
+	 * @param	gc			Graphical context of the canvas
+	 * @param	offsetX		X position of the element (center)
+	 * @param	offsetY		X position of the element (center)
+	 * @param	width		Width of the box
+	 * @param	height		Height of the box
+	 * @param	rot			Rotation of the box
+	 * @param 	mode		Selection mode of the component
+	 */
+	static public void renderBox(GraphicsContext gc, double offsetX, double offsetY, double width, double height, double rot, SelectionMode mode)
+	{
+		gc.save();
+		if(mode.equals(SelectionMode.SELECTED))
+		{
+			gc.setFill(GraphicDesignContainer.selected_element_color);
+		}
+		else
+		{
+			gc.setFill(GraphicDesignContainer.elements_color);
+		}
+		gc.translate(offsetX, offsetY);
+		gc.rotate(rot);
+		gc.fillRect(-width*0.5, -height*0.5, width, height);
+		gc.restore();
+	}
+	
 	/**
 	 * Searches the svgString for svg tag and extracts the height property.
 	 * 
@@ -244,126 +260,6 @@ public class SvgRenderer
 		}
 		return -1;
 	}
-	
-	/**
-	 * Used for drawing a rotated rectangle on a graphical context.
-	 * 
-	 * @param	rectString	String containing the xml of the rect
-	 * @param	gc			Graphical context of the canvas
-	 * @param	offsetX		X position of the element
-	 * @param	offsetY		X position of the element
-	 * @param	scale		Scale of the image
-	 * @param	rot			Rotation of the image
-	 */
-	private static void renderRect(String rectString, GraphicsContext gc, double offsetX, double offsetY, double scale, double rot)
-	{
-		gc.save();
-		gc.setFill(GraphicDesignContainer.elements_color);
-		gc.setStroke(GraphicDesignContainer.elements_color);
-		
-		double x=0;
-		double y=0;
-		double height=0;
-		double width=0;
-		int stroke_width=0;
-		String fill="";
-		String stroke="";
-		
-		String[] rectElements = rectString.split(" ");
-		for(String s : rectElements)
-		{		
-			s = s.replace('"', ' ');
-			s = s.trim();
-			if(s.contains("x="))
-			{
-				String[] sElem = s.split(" ");
-				x = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("y="))
-			{
-				String[] sElem = s.split(" ");
-				y = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("stroke-width="))
-			{
-				String[] sElem = s.split(" ");
-				stroke_width = Integer.parseInt(sElem[1]);
-			}
-			else if(s.contains("stroke="))
-			{
-				String[] sElem = s.split(" ");
-				stroke = sElem[1];
-			}
-			else if(s.contains("width="))
-			{
-				String[] sElem = s.split(" ");
-				width = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("height="))
-			{
-				String[] sElem = s.split(" ");
-				height = Double.parseDouble(sElem[1]);
-			}
-			else if(s.contains("fill="))
-			{
-				String[] sElem = s.split(" ");
-				fill = sElem[1];
-			}
-		}
-		
-		x *= scale;
-		y *= scale;
-		
-
-		width *= scale;
-		height *= scale;
-		stroke_width *= scale;
-
-		if (rot == 0)
-		{
-			if (stroke_width != 0)
-			{
-				gc.save();
-				gc.setLineWidth(stroke_width);
-				gc.strokeRect(x + offsetX, y + offsetY, width, height);
-				gc.restore();
-			}
-			else if (fill.contains("none"))
-			{
-				gc.rect(x + offsetX, y + offsetY, width, height);
-			}
-			else
-			{
-				gc.fillRect(x + offsetX, y + offsetY, width, height);
-			}
-		}
-		else
-		{
-			x += offsetX;
-			y += offsetY;
-
-			RotatableRectangle rect = new RotatableRectangle(x,y,width,height, rotationPoint);
-			
-			rect.rotateRect(rot);
-
-			if (stroke_width != 0)
-			{
-				gc.save();
-				gc.setLineWidth(stroke_width);
-				gc.strokePolygon(rect.getXCoordinates(), rect.getYCoordinates(), 4);
-				gc.restore();
-			}
-			else if (fill.contains("none"))
-			{
-				gc.strokePolygon(rect.getXCoordinates(), rect.getYCoordinates(), 4);
-			}
-			else
-			{
-				gc.fillPolygon(rect.getXCoordinates(), rect.getYCoordinates(), 4);
-			}
-		}
-		gc.restore();
-	}
 }
 
 